@@ -0,0 +1,174 @@
+import javax.swing.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Plays one side's shooter on a background thread so the EDT never waits for it. The shooter is confined
+// to a single worker thread: it picks moves there from a detached snapshot of the board, and the shots
+// it must learn about are queued to the same thread. A move that misses its deadline is replaced by a
+// hunt/target pick kept on the EDT, and the late answer is dropped. Everything else runs on the EDT.
+public class AsyncOpponent {
+
+    public static final long DEFAULT_DEADLINE_MILLIS = 2000;
+
+    private final BEngine engine;
+    private final int side;
+    private final Shooter shooter;
+    private final Runnable onMoved;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "battleships-ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SplittableRandom workerRandom; // Worker thread only
+    private final SplittableRandom random;
+    private final HuntTargetShooter fallback = new HuntTargetShooter();
+    private final Timer deadline;
+
+    private volatile int move = 0; // Bumped whenever a move is settled or cancelled, so stale answers are dropped
+    private boolean thinking = false;
+
+    // onMoved runs on the EDT after each shot this side fires
+    public AsyncOpponent(BEngine engine, int side, long deadlineMillis, Runnable onMoved) {
+        this.engine = engine;
+        this.side = side;
+        this.shooter = engine.getShooter(side);
+        this.onMoved = onMoved;
+        // Both streams come from the engine's generator, so a seeded engine seeds the opponent too
+        this.workerRandom = new SplittableRandom(engine.getRandom().nextLong());
+        this.random = new SplittableRandom(engine.getRandom().nextLong());
+        deadline = new Timer((int) deadlineMillis, e -> settle(move, pickFallback()));
+        deadline.setRepeats(false);
+    }
+
+    // Catches the fallback up with the engine; call after a new game or a restore, before the first move
+    public void sync() {
+        fallback.reset(engine.getModel().getBoardSize(), engine.getShips(1 - side));
+        engine.replayObservations(side, fallback);
+    }
+
+    public boolean isThinking() {
+        return thinking;
+    }
+
+    // Runs task on the worker after every move and shooter update queued before it, abandoned moves included,
+    // so it sees the shooter at rest; called from the EDT, the wait keeps the engine still too
+    public <T> T callWhenIdle(Callable<T> task, long timeoutMillis)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Future<T> result;
+        try {
+            result = worker.submit(task);
+        } catch (RejectedExecutionException cancelled) {
+            // Once a cancelled worker has stopped, nothing else touches the shooter, so the task runs here
+            if (!worker.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException();
+            }
+            try {
+                return task.call();
+            } catch (Exception ex) {
+                throw new ExecutionException(ex);
+            }
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (!result.cancel(false)) {
+                return result.get(); // It started as the wait ran out, so let it finish rather than race it
+            }
+            throw ex;
+        }
+    }
+
+    public void requestMove() {
+        if (thinking) {
+            return;
+        }
+        thinking = true;
+        int id = ++move;
+        int shots = engine.isSalvo() ? engine.getSalvoSize(side) : 1;
+        FogView target = engine.getBoard(1 - side).snapshotFog();
+        worker.execute(() -> {
+            if (id != move) {
+                return; // Settled by the deadline while queued behind a slow move
+            }
+            long start = System.nanoTime();
+            int[] cells = new int[shots];
+            if (engine.isSalvo()) {
+                shooter.chooseTargets(target, workerRandom, cells, shots);
+            } else {
+                cells[0] = shooter.chooseTarget(target, workerRandom);
+            }
+            if (Metrics.ENABLED) {
+                Metrics.AI_DECISION.record(System.nanoTime() - start);
+            }
+            SwingUtilities.invokeLater(() -> settle(id, cells));
+        });
+        deadline.restart();
+    }
+
+    // Drops any move in flight and stops the worker; the shooter is not used again
+    public void cancel() {
+        move++;
+        thinking = false;
+        deadline.stop();
+        worker.shutdownNow();
+    }
+
+    private int[] pickFallback() {
+        FogView target = engine.getBoard(1 - side).getFogView();
+        if (!engine.isSalvo()) {
+            return new int[] {fallback.chooseTarget(target, random)};
+        }
+        int[] cells = new int[engine.getSalvoSize(side)];
+        fallback.chooseTargets(target, random, cells, cells.length);
+        return cells;
+    }
+
+    private void settle(int id, int[] cells) {
+        if (id != move || !thinking) {
+            return; // Cancelled, or the deadline already answered this move
+        }
+        move++;
+        thinking = false;
+        deadline.stop();
+        if (engine.getPhase() != (side == BEngine.PLAYER ? BEngine.Phase.PLAYER_TURN : BEngine.Phase.OPPONENT_TURN)) {
+            return;
+        }
+        int size = engine.getModel().getBoardSize();
+        if (engine.isSalvo()) {
+            engine.fireSalvo(side, cells, cells.length);
+            engine.observeSalvo(fallback);
+            // The engine reuses its salvo arrays, so the worker gets its own copy of the results
+            BEngine.ShotResult[] results = new BEngine.ShotResult[cells.length];
+            Ship[] sunk = new Ship[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                results[i] = engine.getSalvoResult(i);
+                sunk[i] = engine.getSalvoSunk(i);
+            }
+            if (!engine.isGameOver()) {
+                worker.execute(() -> {
+                    for (int i = 0; i < cells.length; i++) {
+                        shooter.shotResolved(cells[i] / size, cells[i] % size, results[i], sunk[i]);
+                    }
+                });
+            }
+        } else {
+            int row = cells[0] / size;
+            int col = cells[0] % size;
+            BEngine.ShotResult result = engine.fire(side, row, col);
+            Ship sunk = engine.getLastSunk();
+            fallback.shotResolved(row, col, result, sunk);
+            if (!engine.isGameOver()) {
+                worker.execute(() -> shooter.shotResolved(row, col, result, sunk));
+            }
+        }
+        onMoved.run();
+    }
+
+}
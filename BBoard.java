@@ -0,0 +1,218 @@
+import java.util.Arrays;
+
+public class BBoard implements CellSource {
+
+    private final int size;
+    private final BitLayer ships;
+    private final BitLayer hits;
+    private final BitLayer misses;
+
+    // Cell-to-ship index: 0 for open water, otherwise 1 + the ship's slot in placedShips
+    private final CellIndex shipIds;
+    private Ship[] placedShips = new Ship[16];
+    private int placedCount = 0;
+
+    private int intactCells = 0; // Ship cells not yet hit
+
+    private final FogView fogView = new FogView(this);
+
+    public BBoard(int size) {
+        this.size = size;
+        ships = BitLayer.forCells(size * size);
+        hits = BitLayer.forCells(size * size);
+        misses = BitLayer.forCells(size * size);
+        shipIds = new CellIndex(size * size);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    public void clear() {
+        ships.clearAll();
+        hits.clearAll();
+        misses.clearAll();
+        shipIds.clearAll();
+        Arrays.fill(placedShips, 0, placedCount, null);
+        placedCount = 0;
+        intactCells = 0;
+    }
+
+    public boolean canPlace(int startRow, int startCol, int length, char orientation) {
+        return fits(ships, size, startRow, startCol, length, orientation);
+    }
+
+    // The placement rule on any occupancy layer of a size x size board, so samplers can share it
+    public static boolean fits(BitLayer occupied, int size, int startRow, int startCol, int length, char orientation) {
+        if (!inBounds(size, startRow, startCol, length, orientation)) {
+            return false;
+        }
+        if (PlacementTable.supports(size)) { // One mask test against the precomputed placement
+            PlacementTable table = PlacementTable.forShip(size, length);
+            int placement = table.indexOf(startRow, startCol, orientation);
+            return !((Bitboard) occupied).intersectsMask(table.getMasks(), table.getMaskOffset(placement));
+        }
+        int cell = startRow * size + startCol;
+        int step = (orientation == 'H') ? 1 : size;
+        for (int i = 0; i < length; i++, cell += step) {
+            if (occupied.get(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean placeShip(Ship ship, int startRow, int startCol, char orientation) {
+        int length = ship.getLength();
+        if (!canPlace(startRow, startCol, length, orientation)) {
+            return false;
+        }
+        int id = register(ship);
+        int[][] positions = new int[length][2];
+        for (int i = 0; i < length; i++) {
+            positions[i][0] = (orientation == 'V') ? startRow + i : startRow;
+            positions[i][1] = (orientation == 'H') ? startCol + i : startCol;
+            mark(positions[i][0] * size + positions[i][1], id);
+        }
+        ship.setPositions(positions);
+        return true;
+    }
+
+    // Places a ship on a precomputed placement, the caller has already checked it is free
+    public void placeShip(Ship ship, PlacementTable table, int placement) {
+        int length = table.getLength();
+        int id = register(ship);
+        int[][] positions = new int[length][2];
+        for (int i = 0; i < length; i++) {
+            int cell = table.getCell(placement, i);
+            positions[i][0] = cell / size;
+            positions[i][1] = cell % size;
+            mark(cell, id);
+        }
+        ship.setPositions(positions);
+    }
+
+    private void mark(int cell, int id) {
+        ships.set(cell);
+        shipIds.put(cell, id);
+    }
+
+    private int register(Ship ship) {
+        if (placedCount == placedShips.length) {
+            placedShips = Arrays.copyOf(placedShips, placedCount * 2);
+        }
+        placedShips[placedCount++] = ship;
+        intactCells += ship.getLength();
+        return placedCount;
+    }
+
+    private static boolean inBounds(int size, int startRow, int startCol, int length, char orientation) {
+        if (startRow < 0 || startCol < 0) {
+            return false;
+        }
+        if (orientation == 'H') {
+            return startCol + length <= size && startRow < size;
+        } else if (orientation == 'V') {
+            return startRow + length <= size && startCol < size;
+        }
+        return false;
+    }
+
+    // Returns 'X' for a hit, 'O' for a miss, or the existing mark if the cell was already fired at
+    public char fire(int row, int col) {
+        int cell = row * size + col;
+        if (hits.get(cell)) {
+            return 'X';
+        }
+        if (misses.get(cell)) {
+            return 'O';
+        }
+        if (ships.get(cell)) {
+            hits.set(cell);
+            intactCells--;
+            return 'X';
+        }
+        misses.set(cell);
+        return 'O';
+    }
+
+    public Ship shipAt(int row, int col) {
+        int id = shipIds.get(row * size + col);
+        return id == 0 ? null : placedShips[id - 1];
+    }
+
+    public boolean isShot(int row, int col) {
+        int cell = row * size + col;
+        return hits.get(cell) || misses.get(cell);
+    }
+
+    @Override
+    public char cellAt(int row, int col) {
+        int cell = row * size + col;
+        if (hits.get(cell)) {
+            return 'X';
+        }
+        if (misses.get(cell)) {
+            return 'O';
+        }
+        return ships.get(cell) ? 'S' : '-';
+    }
+
+    public boolean allSunk() {
+        return intactCells == 0;
+    }
+
+    public int getIntactCells() {
+        return intactCells;
+    }
+
+    public FogView getFogView() {
+        return fogView;
+    }
+
+    // A detached copy of the shots alone, for reading the board on another thread while play goes on
+    public FogView snapshotFog() {
+        BBoard copy = new BBoard(size);
+        for (int w = 0; w < hits.getWordCount(); w++) {
+            for (long word = hits.getWord(w); word != 0L; word &= word - 1) {
+                copy.hits.set((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+            for (long word = misses.getWord(w); word != 0L; word &= word - 1) {
+                copy.misses.set((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+        return copy.fogView;
+    }
+
+    public char[][] toCharArray(boolean hideShips) {
+        char[][] board = new char[size][size];
+        exportInto(board, hideShips);
+        return board;
+    }
+
+    public void exportInto(char[][] buffer, boolean hideShips) {
+        if (hideShips) {
+            fogView.exportInto(buffer);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                buffer[i][j] = cellAt(i, j);
+            }
+        }
+    }
+
+    public BitLayer getShipLayer() {
+        return ships;
+    }
+
+    public BitLayer getHitLayer() {
+        return hits;
+    }
+
+    public BitLayer getMissLayer() {
+        return misses;
+    }
+
+}
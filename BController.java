@@ -1,33 +1,52 @@
-import javax.swing.JButton;
-import java.awt.*;
+import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 public class BController {
 
     private final BModel model;
     private final BView view;
+    private final BEngine engine;
+    private final AsyncOpponent opponent; // Thinks off the EDT
 
-    private final boolean[][] alreadyGuessed;
+    private int currentShipIndex = 0;
+    private char currentOrientation = 'H';
 
-    private int[][] hitQueue = new int[100][2];
-    private int hitQueueSize = 0;
+    // Cells currently tinted by the placement preview, so clearing it only touches those
+    private final int[] previewCells;
+    private int previewCount = 0;
 
-    private int playerTries = 0;
-    private int opponentTries = 0;
+    // Salvo shots aimed so far this turn, fired together once the salvo is full
+    private int[] aimedCells = new int[0];
+    private int aimedCount = 0;
 
-    private enum GamePhase {
-        SHIP_PLACEMENT, PLAYER_TURN, OPPONENT_TURN, GAME_OVER
+    public BController(BModel model, BView view) {
+        this(new BEngine(model), view);
+        startGame();
     }
 
-    private GamePhase phase = GamePhase.SHIP_PLACEMENT;
-    private int currentShipIndex = 0;
-    private char currentOrientation = 'H';
-
-    public BController(BModel model, BView view) {
-        this.model = model;
+    // Drives an existing engine, for example one restored from a snapshot; call resumeGame to show it
+    public BController(BEngine engine, BView view) {
+        this.model = engine.getModel();
         this.view = view;
-        alreadyGuessed = new boolean[BModel.boardSize][BModel.boardSize];
+        this.engine = engine;
+        this.previewCells = new int[model.getConfig().getLongestShip()];
+        this.opponent = new AsyncOpponent(engine, BEngine.OPPONENT, AsyncOpponent.DEFAULT_DEADLINE_MILLIS, this::opponentMoved);
         initialiseActionListeners();
-        startGame();
+        model.addGameListener(GameEvents.onEdt(new ViewUpdater()));
+        view.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (Metrics.ENABLED && !engine.isGameOver()) {
+                    Metrics.GAMES_ABANDONED.increment();
+                }
+                opponent.cancel();
+            }
+        });
 
         view.getToggleOrientationButton().addActionListener(e -> {
             if (currentOrientation == 'H') {
@@ -41,64 +60,142 @@ public class BController {
     }
 
     public void startGame() {
-        model.initialiseBoard();
-        model.placeShips();
-        view.updateBoard(model.getPlayerBoard(), view.getPlayerButtons());
-        view.updateBoard(model.getOpponentBoardHidden(), view.getOpponentButtons());
+        engine.newGame();
+        engine.placeShipsRandomly(BEngine.OPPONENT);
+        opponent.sync();
+        view.updateBoard(model.getPlayerGrid(), view.getPlayerBoard());
+        view.updateBoard(model.getOpponentFogView(), view.getOpponentBoard());
 
-        view.setPlayerButtonsEnabled(true);
-        view.setOpponentButtonsEnabled(false);
+        view.setPlayerBoardEnabled(true);
+        view.setOpponentBoardEnabled(false);
 
         view.updateGamePhase("Ship Placement");
     }
 
     public void startLoadedGame() {
-        phase = GamePhase.PLAYER_TURN;
+        engine.startBattle();
         view.updateGamePhase("Player Turn");
-        view.setPlayerButtonsEnabled(false); // Ensure player board interaction is off
-        view.setOpponentButtonsEnabled(true); // Enable interaction with the opponent's board
+        view.setPlayerBoardEnabled(false); // Ensure player board interaction is off
+        view.setOpponentBoardEnabled(true); // Enable interaction with the opponent's board
         view.displayMessage("Game loaded. Your turn!");
     }
 
+    public void resumeGame() {
+        Ship[] playerShips = model.getPlayerShips();
+        currentShipIndex = 0;
+        while (currentShipIndex < playerShips.length && playerShips[currentShipIndex].isPlaced()) {
+            currentShipIndex++;
+        }
+        view.updateBoard(model.getPlayerGrid(), view.getPlayerBoard());
+        view.updateBoard(model.getOpponentFogView(), view.getOpponentBoard());
+        opponent.sync();
+
+        switch (engine.getPhase()) {
+            case SHIP_PLACEMENT:
+                view.setPlayerBoardEnabled(true);
+                view.setOpponentBoardEnabled(false);
+                view.updateGamePhase("Ship Placement");
+                if (currentShipIndex < playerShips.length) {
+                    view.displayMessage("Game loaded. Place ship: " + playerShips[currentShipIndex].getName());
+                }
+                break;
+            case OPPONENT_TURN:
+                view.getToggleOrientationButton().setVisible(false);
+                view.setPlayerBoardEnabled(false);
+                view.setOpponentBoardEnabled(true);
+                view.displayMessage("Game loaded.");
+                opponentTurn();
+                break;
+            case GAME_OVER:
+                view.getToggleOrientationButton().setVisible(false);
+                view.setPlayerBoardEnabled(false);
+                view.setOpponentBoardEnabled(false);
+                view.updateGamePhase("Game Over!");
+                view.displayGameOver(engine.getWinner() == BEngine.PLAYER ? "Player" : "Opponent");
+                break;
+            default:
+                view.getToggleOrientationButton().setVisible(false);
+                view.setPlayerBoardEnabled(false);
+                view.setOpponentBoardEnabled(true);
+                view.updateGamePhase("Player Turn");
+                view.displayMessage("Game loaded. Your turn!");
+        }
+    }
+
+    private void saveGame() {
+        if (opponent.isThinking()) {
+            view.displayMessage("Wait for the opponent's move before saving.");
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showSaveDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = fileChooser.getSelectedFile().toPath();
+        try {
+            // The opponent's shooter may still be taking in its last shot, so its state is written on its own thread
+            opponent.callWhenIdle(() -> {
+                GameSnapshot.save(engine, path);
+                return null;
+            }, AsyncOpponent.DEFAULT_DEADLINE_MILLIS);
+            view.displayMessage("Game saved to " + fileChooser.getSelectedFile().getName());
+        } catch (TimeoutException ex) {
+            view.displayMessage("The opponent is still busy, try saving again.");
+        } catch (ExecutionException ex) {
+            view.displayMessage("Could not save the game: " + ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stops the opponent's worker and closes the window without the close counting as an abandoned game
+    public void dispose() {
+        opponent.cancel();
+        view.dispose();
+    }
+
     private void initialiseActionListeners() {
-        JButton[][] playerButtons = view.getPlayerButtons();
-        JButton[][] opponentButtons = view.getOpponentButtons();
-
-        for (int i = 0; i < BModel.boardSize; i++) {
-            for (int j = 0; j < BModel.boardSize; j++) {
-                final int row = i;
-                final int col = j;
-
-                view.getPlayerButtons()[i][j].addActionListener(e -> {
-                    if (phase == GamePhase.SHIP_PLACEMENT) {
-                        placeNextPlayerShip(row, col);
-                    }
-                });
-
-                view.getPlayerButtons()[i][j].addMouseListener(new java.awt.event.MouseAdapter() {
-                    @Override
-                    public void mouseEntered(java.awt.event.MouseEvent e) {
-                        if (phase == GamePhase.SHIP_PLACEMENT) {
-                            showShipPreview(row, col);
-                        }
-                    }
-
-                    @Override
-                    public void mouseExited(java.awt.event.MouseEvent e) {
-                        if (phase == GamePhase.SHIP_PLACEMENT) {
-                            clearPreview();
-                        }
-                    }
-                });
-
-                opponentButtons[i][j].addActionListener(e -> {
-                    if (phase == GamePhase.PLAYER_TURN) {
-                        playerTurn(row, col);
-                    }
-                });
+        view.getSaveGameButton().addActionListener(e -> saveGame());
+
+        view.getPlayerBoard().setBoardListener(new BoardPanel.BoardListener() {
+            @Override
+            public void cellClicked(int row, int col) {
+                if (engine.getPhase() == BEngine.Phase.SHIP_PLACEMENT) {
+                    placeNextPlayerShip(row, col);
+                }
+            }
+
+            @Override
+            public void cellEntered(int row, int col) {
+                if (engine.getPhase() == BEngine.Phase.SHIP_PLACEMENT) {
+                    showShipPreview(row, col);
+                }
+            }
+
+            @Override
+            public void cellExited(int row, int col) {
+                if (engine.getPhase() == BEngine.Phase.SHIP_PLACEMENT) {
+                    clearPreview();
+                }
+            }
+        });
+
+        view.getOpponentBoard().setBoardListener(new BoardPanel.BoardListener() {
+            @Override
+            public void cellClicked(int row, int col) {
+                if (engine.getPhase() == BEngine.Phase.PLAYER_TURN) {
+                    playerTurn(row, col);
+                }
+            }
+
+            @Override
+            public void cellEntered(int row, int col) {
             }
-        }
 
+            @Override
+            public void cellExited(int row, int col) {
+            }
+        });
     }
 
     private void placeNextPlayerShip(int row, int col) {
@@ -109,23 +206,20 @@ public class BController {
 
         Ship ship = playerShips[currentShipIndex];
         char orientation = currentOrientation;
-        boolean placed = model.placeShip(model.getPlayerBoard(), ship, row, col, orientation);
+        boolean placed = engine.placeShip(BEngine.PLAYER, ship, row, col, orientation);
 
         if (placed) {
             currentShipIndex++;
-            view.updateBoard(model.getPlayerBoard(), view.getPlayerButtons());
             view.displayMessage("Placed " + ship.getName());
 
             if (currentShipIndex == playerShips.length) {
                 view.displayMessage("All ships placed! Game begins!");
-                phase = GamePhase.PLAYER_TURN;
+                engine.startBattle();
                 view.updateGamePhase("Player Turn");
                 view.getToggleOrientationButton().setVisible(false);
 
-                view.setPlayerButtonsEnabled(false);
-                view.setOpponentButtonsEnabled(true);
-
-                view.updateBoard(model.getOpponentBoardHidden(), view.getOpponentButtons());
+                view.setPlayerBoardEnabled(false);
+                view.setOpponentBoardEnabled(true);
             } else {
                 view.displayMessage("Place ship: " + playerShips[currentShipIndex].getName());
             }
@@ -138,199 +232,149 @@ public class BController {
     private void showShipPreview(int row, int col) {
         Ship ship = model.getPlayerShips()[currentShipIndex];
         int length = ship.getLength();
-        JButton[][] buttons = view.getPlayerButtons();
-        char[][] board = model.getPlayerBoard();
+        BoardPanel board = view.getPlayerBoard();
 
-        boolean valid = isValidPlacement(board, row, col, length, currentOrientation);
+        boolean valid = model.getPlayerGrid().canPlace(row, col, length, currentOrientation);
 
+        previewCount = 0;
         for (int i = 0; i < length; i++) {
             int r = (currentOrientation == 'V') ? row + i : row;
             int c = (currentOrientation == 'H') ? col + i : col;
 
-            if (r >= BModel.boardSize || c >= BModel.boardSize) {
+            if (r >= model.getBoardSize() || c >= model.getBoardSize()) {
                 continue;
             }
 
-            buttons[r][c].setBackground(valid ? Color.GREEN : Color.RED);
+            view.updateCell(board, r, c, valid ? BView.PREVIEW_VALID : BView.PREVIEW_INVALID);
+            previewCells[previewCount++] = r * model.getBoardSize() + c;
         }
     }
 
-    private boolean isValidPlacement(char[][] board, int row, int col, int length, char orientation) {
-        for (int i = 0; i < length; i++) {
-            int r = (orientation == 'V') ? row + i : row;
-            int c = (orientation == 'H') ? col + i : col;
-
-            if (r >= BModel.boardSize || c >= BModel.boardSize) {
-                return false;
-            }
-
-            if (board[r][c] != '-') {
-                return false;
-            }
-        }
-        return true;
-    }
-
     private void clearPreview() {
-        view.updateBoard(model.getPlayerBoard(), view.getPlayerButtons());
+        BBoard board = model.getPlayerGrid();
+        for (int i = 0; i < previewCount; i++) {
+            int r = previewCells[i] / model.getBoardSize();
+            int c = previewCells[i] % model.getBoardSize();
+            view.updateCell(view.getPlayerBoard(), r, c, board.cellAt(r, c));
+        }
+        previewCount = 0;
     }
 
     private void playerTurn(int row, int col) {
+        if (engine.isSalvo()) {
+            aimSalvo(row, col);
+            return;
+        }
         view.updateGamePhase("Player Turn");
-        playerTries++;
 
-        if (alreadyGuessed[row][col]) {
+        BEngine.ShotResult result = engine.fire(BEngine.PLAYER, row, col);
+        if (result != BEngine.ShotResult.ALREADY_GUESSED && !engine.isGameOver()) {
+            opponentTurn();
+        }
+    }
+
+    // A second click on an aimed cell takes the shot back
+    private void aimSalvo(int row, int col) {
+        if (model.getOpponentGrid().isShot(row, col)) {
             view.displayMessage("Spot already guessed!");
             return;
         }
-
-        alreadyGuessed[row][col] = true; // Add current guess to list of guesses
-        char[][] opponentBoard = model.getOpponentBoard();
-        boolean hit = false;
-        boolean sunk = false;
-        String sunkName = "";
-
-        if (opponentBoard[row][col] == 'S') {
-            opponentBoard[row][col] = 'X';
-            hit = true;
-            for (Ship ship : model.getOpponentShips()) {
-                if (ship.occupies(row, col)) {
-                    ship.registerHit();
-                    if (ship.isSunk()) {
-                        sunk = true;
-                        sunkName = ship.getName();
-                        break;
-                    }
-                }
+        int size = model.getBoardSize();
+        int cell = row * size + col;
+        for (int i = 0; i < aimedCount; i++) {
+            if (aimedCells[i] == cell) {
+                aimedCells[i] = aimedCells[--aimedCount];
+                view.updateCell(view.getOpponentBoard(), row, col, model.getOpponentFogView().cellAt(row, col));
+                return;
             }
-        } else if (opponentBoard[row][col] == '-') {
-            opponentBoard[row][col] = 'O';
         }
-
-        view.updateBoard(model.getOpponentBoardHidden(), view.getOpponentButtons());
-        view.displayResult(row, col, hit);
-
-        if (sunk) { // Band-Aid fix to display ship sunk message after hit message
-            view.displayMessage("You sunk the opponent's " + sunkName + "!");
+        int shots = engine.getSalvoSize(BEngine.PLAYER);
+        if (aimedCells.length < shots) {
+            aimedCells = Arrays.copyOf(aimedCells, shots);
         }
-
-        if (checkWin(opponentBoard)) {
-            view.displayGameOver("Player");
-            view.displayMessage("You won the game in " + playerTries + " turns!");
-            disableOpponentButtons();
-        } else {
+        aimedCells[aimedCount++] = cell;
+        view.updateCell(view.getOpponentBoard(), row, col, BView.PREVIEW_VALID);
+        if (aimedCount < shots) {
+            view.displayMessage("Salvo: " + aimedCount + " of " + shots + " shots aimed");
+            return;
+        }
+        aimedCount = 0;
+        engine.fireSalvo(BEngine.PLAYER, aimedCells, shots);
+        if (!engine.isGameOver()) {
             opponentTurn();
         }
     }
 
+    // The move is chosen in the background; clicks on the opponent board are ignored until it lands
     private void opponentTurn() {
-        opponentTries++;
-
-        char[][] playerBoard = model.getPlayerBoard();
-        int row = -1, col = -1;
-        boolean foundTarget = false;
-        boolean hit = false;
-        boolean sunk = false;
-        String sunkName = "";
-
-        if (!checkWin(playerBoard)) { // Prevent Opponent's turn from lingering past victory
-            phase = GamePhase.OPPONENT_TURN;
-            view.updateGamePhase("Opponent Turn");
-        }
+        view.updateGamePhase("Opponent Turn");
+        opponent.requestMove();
+    }
 
-        for (int i = 0; i < hitQueueSize && !foundTarget; i++) {
-            int hitRow = hitQueue[i][0];
-            int hitCol = hitQueue[i][1];
-
-            int[][] neighbors = {
-                    {hitRow - 1, hitCol},
-                    {hitRow + 1, hitCol},
-                    {hitRow, hitCol - 1},
-                    {hitRow, hitCol + 1}
-            };
-
-            for (int[] n : neighbors) {
-                int r = n[0], c = n[1];
-                if (r >= 0 && r < BModel.boardSize && c >= 0 && c < BModel.boardSize) {
-                    if (playerBoard[r][c] != 'X' && playerBoard[r][c] != 'O') {
-                        row = r;
-                        col = c;
-                        foundTarget = true;
-                        break;
-                    }
-                }
-            }
+    private void opponentMoved() {
+        if (!engine.isGameOver()) {
+            view.updateGamePhase("Player Turn");
         }
+    }
 
-        if (!foundTarget) {
-            do {
-                row = (int) (Math.random() * BModel.boardSize);
-                col = (int) (Math.random() * BModel.boardSize);
-            } while (playerBoard[row][col] == 'X' || playerBoard[row][col] == 'O');
-        }
+    // Paints shots and reports them as the engine publishes them, a turn at a time on the EDT
+    private class ViewUpdater implements GameListener {
 
-        if (playerBoard[row][col] == 'S') {
-            playerBoard[row][col] = 'X';
-            hit = true;
-
-            for (Ship ship : model.getPlayerShips()) {
-                if (ship.occupies(row, col)) {
-                    ship.registerHit();
-                    if (ship.isSunk()) {
-                        sunk = true;
-                        sunkName = ship.getName();
-                        break;
-                    }
-                }
+        @Override
+        public void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+            if (owner != BEngine.PLAYER) {
+                return; // The opponent's fleet stays hidden
             }
-
-            if (hitQueueSize < hitQueue.length) {
-                hitQueue[hitQueueSize][0] = row;
-                hitQueue[hitQueueSize][1] = col;
-                hitQueueSize++;
+            int length = model.getPlayerShips()[shipIndex].getLength();
+            for (int i = 0; i < length; i++) {
+                view.updateCell(view.getPlayerBoard(), orientation == 'V' ? row + i : row, orientation == 'H' ? col + i : col, 'S');
             }
-        } else {
-            playerBoard[row][col] = 'O';
         }
 
-        view.updateBoard(playerBoard, view.getPlayerButtons());
-        view.displayOpponentResult(row, col, hit);
-
-        if (sunk) { // Band-Aid fix to display ship sunk message after hit message
-            view.displayMessage("The opponent sunk your " + sunkName + "!");
+        @Override
+        public void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+            if (result == BEngine.ShotResult.ALREADY_GUESSED) {
+                if (shooter == BEngine.PLAYER) {
+                    view.displayMessage("Spot already guessed!");
+                }
+                return;
+            }
+            boolean hit = result != BEngine.ShotResult.MISS;
+            if (shooter == BEngine.PLAYER) {
+                view.updateCell(view.getOpponentBoard(), row, col, hit ? 'X' : 'O');
+                view.displayResult(row, col, hit);
+            } else {
+                view.updateCell(view.getPlayerBoard(), row, col, hit ? 'X' : 'O');
+                view.displayOpponentResult(row, col, hit);
+            }
         }
 
-        if (checkWin(playerBoard)) {
-            view.displayGameOver("Opponent");
-            view.displayMessage("The opponent won the game in " + opponentTries + " turns!");
-            disableOpponentButtons();
-        } else {
-            phase = GamePhase.PLAYER_TURN;
-            view.updateGamePhase("Player Turn");
+        @Override
+        public void shipSunk(int owner, int shipIndex) {
+            if (owner == BEngine.OPPONENT) {
+                view.displayMessage("You sunk the opponent's " + model.getOpponentShips()[shipIndex].getName() + "!");
+            } else {
+                view.displayMessage("The opponent sunk your " + model.getPlayerShips()[shipIndex].getName() + "!");
+            }
         }
-    }
-
 
-    private boolean checkWin(char[][] board) {
-        for (int i = 0; i < BModel.boardSize; i++) {
-            for (int j = 0; j < BModel.boardSize; j++) {
-                if (board[i][j] == 'S') {
-                    return false;
-                }
+        @Override
+        public void gameOver(int winner, int tries) {
+            view.updateGamePhase("Game Over!");
+            if (winner == BEngine.PLAYER) {
+                view.displayGameOver("Player");
+                view.displayMessage("You won the game in " + tries + " turns!");
+            } else {
+                view.displayGameOver("Opponent");
+                view.displayMessage("The opponent won the game in " + tries + " turns!");
             }
+            disableOpponentBoard();
+            opponent.cancel();
         }
-        phase = GamePhase.GAME_OVER;
-        view.updateGamePhase("Game Over!");
-        return true;
     }
 
-    private void disableOpponentButtons() {
-        JButton[][] opponentButtons = view.getOpponentButtons();
-        for (int i = 0; i < BModel.boardSize; i++) {
-            for (int j = 0; j < BModel.boardSize; j++) {
-                opponentButtons[i][j].setEnabled(false);
-            }
-        }
+    private void disableOpponentBoard() {
+        view.setOpponentBoardEnabled(false);
     }
 
 }
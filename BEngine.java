@@ -0,0 +1,547 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public class BEngine {
+
+    public static final int PLAYER = 0;
+    public static final int OPPONENT = 1;
+
+    public enum Phase {
+        SHIP_PLACEMENT, PLAYER_TURN, OPPONENT_TURN, GAME_OVER
+    }
+
+    public enum ShotResult {
+        MISS, HIT, SUNK, ALREADY_GUESSED
+    }
+
+    private final BModel model;
+    private final GameEvents events;
+    private RandomGenerator random;
+    private final Shooter[] shooters = new Shooter[2];
+    private final FleetSampler sampler = new FleetSampler();
+
+    private Phase phase = Phase.SHIP_PLACEMENT;
+    private final int[] tries = new int[2];
+    private int winner = -1;
+    private boolean counted = true; // False while rebuilding a game, so restores and replays stay out of the metrics
+
+    private ShotResult lastResult;
+    private int lastRow = -1;
+    private int lastCol = -1;
+    private Ship lastSunk;
+
+    private MoveJournal journal; // Optional, records every game this engine plays
+
+    // Salvo rules: 0 for one shot a turn, otherwise shots per turn, or one per surviving ship if salvoPerShip
+    private int salvoShots = 0;
+    private boolean salvoPerShip = false;
+    private int salvoCount = 0;
+    private int[] salvoCells = new int[0];
+    private ShotResult[] salvoResults = new ShotResult[0];
+    private Ship[] salvoSunk = new Ship[0];
+    private int[] salvoPicks = new int[0]; // Scratch for fireSalvoAuto
+
+    public BEngine(BModel model) {
+        this(model, new SplittableRandom());
+    }
+
+    public BEngine(BModel model, RandomGenerator random) {
+        this.model = model;
+        this.events = model.getEvents();
+        this.random = random;
+        model.setRandom(random);
+        shooters[PLAYER] = defaultShooter(model.getBoardSize());
+        shooters[OPPONENT] = defaultShooter(model.getBoardSize());
+    }
+
+    // The density AI needs placement tables, which only exist for smaller boards
+    public static Shooter defaultShooter(int boardSize) {
+        return PlacementTable.supports(boardSize) ? new DensityShooter() : new HuntTargetShooter();
+    }
+
+    public void setShooter(int side, Shooter shooter) {
+        shooters[side] = shooter;
+        shooter.reset(model.getBoardSize(), getShips(1 - side));
+    }
+
+    // Every random choice of the engine, its placements and its shooters comes from this generator, so a
+    // seeded generator set before newGame replays the game exactly
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+        model.setRandom(random);
+    }
+
+    public RandomGenerator getRandom() {
+        return random;
+    }
+
+    public void setSalvo(int shots, boolean perShip) {
+        salvoShots = perShip ? 1 : shots;
+        salvoPerShip = perShip;
+    }
+
+    public boolean isSalvo() {
+        return salvoShots > 0;
+    }
+
+    // Shots the side may fire this turn, never more than the cells it has left to shoot at
+    public int getSalvoSize(int side) {
+        int shots = salvoShots;
+        if (salvoPerShip) {
+            shots = 0;
+            for (Ship ship : getShips(side)) {
+                if (ship.isPlaced() && !ship.isSunk()) {
+                    shots++;
+                }
+            }
+        }
+        BBoard target = getBoard(1 - side);
+        int open = target.getSize() * target.getSize() - target.getHitLayer().cardinality() - target.getMissLayer().cardinality();
+        return Math.max(1, Math.min(shots, open));
+    }
+
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    public BModel getModel() {
+        return model;
+    }
+
+    public void newGame() {
+        newGame(true);
+    }
+
+    // Restores and replays pass false: the game already started once, wherever it was first played
+    void newGame(boolean counted) {
+        this.counted = counted;
+        model.initialiseBoard();
+        for (int side = 0; side < 2; side++) {
+            for (Ship ship : getShips(side)) {
+                ship.reset();
+            }
+            tries[side] = 0;
+            shooters[side].reset(model.getBoardSize(), getShips(1 - side));
+        }
+        winner = -1;
+        lastResult = null;
+        lastRow = -1;
+        lastCol = -1;
+        lastSunk = null;
+        phase = Phase.SHIP_PLACEMENT;
+        if (Metrics.ENABLED && counted) {
+            Metrics.GAMES_STARTED.increment();
+        }
+        if (journal != null) {
+            journal.recordNewGame(model.getBoardSize(), model.getConfig().getShipCount());
+        }
+        events.newGame();
+        events.turnEnded();
+    }
+
+    public boolean placeShip(int side, Ship ship, int row, int col, char orientation) {
+        if (!getBoard(side).placeShip(ship, row, col, orientation)) {
+            return false;
+        }
+        if (events.hasListeners()) {
+            events.shipPlaced(side, indexOf(side, ship), row, col, orientation);
+            events.turnEnded();
+        }
+        return true;
+    }
+
+    public void placeShipsRandomly(int side) {
+        placeShips(side, sampler);
+    }
+
+    public void placeShips(int side, PlacementStrategy strategy) {
+        strategy.placeShips(getBoard(side), getShips(side), random);
+        if (events.hasListeners()) {
+            Ship[] ships = getShips(side);
+            for (int i = 0; i < ships.length; i++) {
+                if (ships[i].isPlaced()) {
+                    int[] start = ships[i].getPositions()[0];
+                    events.shipPlaced(side, i, start[0], start[1], ships[i].getOrientation());
+                }
+            }
+            events.turnEnded();
+        }
+    }
+
+    public void startBattle() {
+        startBattle(PLAYER);
+    }
+
+    public void startBattle(int firstSide) {
+        phase = turnPhase(firstSide);
+        if (journal != null) {
+            journalPlacements();
+            journal.recordStart(firstSide);
+        }
+    }
+
+    // Placements are journaled as the battle starts, so ships placed straight on the model are covered too
+    private void journalPlacements() {
+        int size = model.getBoardSize();
+        for (int side = 0; side < 2; side++) {
+            Ship[] ships = getShips(side);
+            for (int i = 0; i < ships.length; i++) {
+                if (ships[i].isPlaced()) {
+                    int[] start = ships[i].getPositions()[0];
+                    journal.recordPlacement(side, i, start[0] * size + start[1], ships[i].getOrientation());
+                }
+            }
+        }
+    }
+
+    public ShotResult fire(int side, int row, int col) {
+        if (!Metrics.ENABLED) {
+            return resolveShot(side, row, col);
+        }
+        long start = System.nanoTime();
+        ShotResult result = resolveShot(side, row, col);
+        Metrics.SHOT_RESOLUTION.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private ShotResult resolveShot(int side, int row, int col) {
+        if (phase != turnPhase(side)) {
+            throw new IllegalStateException("Side " + side + " cannot fire during " + phase);
+        }
+        if (row < 0 || row >= model.getBoardSize() || col < 0 || col >= model.getBoardSize()) {
+            throw new IllegalArgumentException("Shot outside the board: " + row + "," + col);
+        }
+        tries[side]++;
+        lastRow = row;
+        lastCol = col;
+        lastSunk = null;
+
+        BBoard target = getBoard(1 - side);
+        if (target.isShot(row, col)) {
+            lastResult = ShotResult.ALREADY_GUESSED;
+            if (journal != null) {
+                journal.recordShot(side, row * model.getBoardSize() + col, lastResult);
+            }
+            publishShot(side, row, col);
+            return lastResult;
+        }
+
+        if (model.fire(target, row, col) == 'X') {
+            Ship ship = target.shipAt(row, col);
+            ship.registerHit();
+            if (ship.isSunk()) {
+                lastResult = ShotResult.SUNK;
+                lastSunk = ship;
+            } else {
+                lastResult = ShotResult.HIT;
+            }
+        } else {
+            lastResult = ShotResult.MISS;
+        }
+
+        if (target.allSunk()) {
+            winner = side;
+            phase = Phase.GAME_OVER;
+            if (Metrics.ENABLED && counted) {
+                Metrics.GAMES_FINISHED.increment();
+            }
+        } else {
+            phase = turnPhase(1 - side);
+        }
+        if (journal != null) {
+            journal.recordShot(side, row * model.getBoardSize() + col, lastResult);
+            if (phase == Phase.GAME_OVER) {
+                journal.endGame();
+            }
+        }
+        publishShot(side, row, col);
+        return lastResult;
+    }
+
+    // Resolves a whole salvo as one turn: every shot lands, then sinks, the win and the turn are settled once.
+    // A ship is reported sunk on the last shot of the salvo that hit it; repeated cells, including ones
+    // repeated within the salvo, are ALREADY_GUESSED. Results stay readable through getSalvoResult.
+    public void fireSalvo(int side, int[] cells, int count) {
+        if (!Metrics.ENABLED) {
+            resolveSalvo(side, cells, count);
+            return;
+        }
+        long start = System.nanoTime();
+        resolveSalvo(side, cells, count);
+        Metrics.SHOT_RESOLUTION.record(System.nanoTime() - start);
+    }
+
+    private void resolveSalvo(int side, int[] cells, int count) {
+        if (phase != turnPhase(side)) {
+            throw new IllegalStateException("Side " + side + " cannot fire during " + phase);
+        }
+        int size = model.getBoardSize();
+        if (count < 1 || count > getSalvoSize(side)) {
+            throw new IllegalArgumentException("Salvo of " + count + " shots, " + getSalvoSize(side) + " allowed");
+        }
+        for (int i = 0; i < count; i++) {
+            if (cells[i] < 0 || cells[i] >= size * size) {
+                throw new IllegalArgumentException("Shot outside the board: cell " + cells[i]);
+            }
+        }
+        if (salvoCells.length < count) {
+            salvoCells = new int[count];
+            salvoResults = new ShotResult[count];
+            salvoSunk = new Ship[count];
+        }
+        System.arraycopy(cells, 0, salvoCells, 0, count);
+        salvoCount = count;
+        tries[side] += count;
+
+        BBoard target = getBoard(1 - side);
+        for (int i = 0; i < count; i++) {
+            int row = cells[i] / size;
+            int col = cells[i] % size;
+            salvoSunk[i] = null;
+            if (target.isShot(row, col)) {
+                salvoResults[i] = ShotResult.ALREADY_GUESSED;
+            } else if (model.fire(target, row, col) == 'X') {
+                target.shipAt(row, col).registerHit();
+                salvoResults[i] = ShotResult.HIT;
+            } else {
+                salvoResults[i] = ShotResult.MISS;
+            }
+        }
+        // One sink pass from the back, so each sunk ship is credited to the last shot that hit it
+        for (int i = count - 1; i >= 0; i--) {
+            if (salvoResults[i] != ShotResult.HIT) {
+                continue;
+            }
+            Ship ship = target.shipAt(cells[i] / size, cells[i] % size);
+            if (!ship.isSunk()) {
+                continue;
+            }
+            boolean credited = false;
+            for (int j = i + 1; j < count && !credited; j++) {
+                credited = salvoSunk[j] == ship;
+            }
+            if (!credited) {
+                salvoResults[i] = ShotResult.SUNK;
+                salvoSunk[i] = ship;
+            }
+        }
+
+        lastRow = cells[count - 1] / size;
+        lastCol = cells[count - 1] % size;
+        lastResult = salvoResults[count - 1];
+        lastSunk = salvoSunk[count - 1];
+        if (target.allSunk()) {
+            winner = side;
+            phase = Phase.GAME_OVER;
+            if (Metrics.ENABLED && counted) {
+                Metrics.GAMES_FINISHED.increment();
+            }
+        } else {
+            phase = turnPhase(1 - side);
+        }
+        if (journal != null) {
+            journal.recordSalvo(side, count);
+            for (int i = 0; i < count; i++) {
+                journal.recordShot(side, cells[i], salvoResults[i]);
+            }
+            if (phase == Phase.GAME_OVER) {
+                journal.endGame();
+            }
+        }
+        if (events.hasListeners()) {
+            for (int i = 0; i < count; i++) {
+                events.shotResolved(side, cells[i] / size, cells[i] % size, salvoResults[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                if (salvoSunk[i] != null) {
+                    events.shipSunk(1 - side, indexOf(1 - side, salvoSunk[i]));
+                }
+            }
+            if (phase == Phase.GAME_OVER) {
+                events.gameOver(winner, tries[winner]);
+            }
+            events.turnEnded();
+        }
+    }
+
+    // Lets the side's shooter pick the whole salvo, then tells it how each shot went
+    public void fireSalvoAuto(int side) {
+        int count = getSalvoSize(side);
+        int[] cells = salvoPicks(count);
+        BBoard target = getBoard(1 - side);
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            shooters[side].chooseTargets(target.getFogView(), random, cells, count);
+            Metrics.AI_DECISION.record(System.nanoTime() - start);
+        } else {
+            shooters[side].chooseTargets(target.getFogView(), random, cells, count);
+        }
+        fireSalvo(side, cells, count);
+        observeSalvo(shooters[side]);
+    }
+
+    // Feeds the last salvo's results to a shooter in firing order
+    public void observeSalvo(Shooter shooter) {
+        int size = model.getBoardSize();
+        for (int i = 0; i < salvoCount; i++) {
+            shooter.shotResolved(salvoCells[i] / size, salvoCells[i] % size, salvoResults[i], salvoSunk[i]);
+        }
+    }
+
+    private int[] salvoPicks(int count) {
+        if (salvoPicks.length < count) {
+            salvoPicks = new int[count];
+        }
+        return salvoPicks;
+    }
+
+    public int getSalvoCount() {
+        return salvoCount;
+    }
+
+    public int getSalvoCell(int i) {
+        return salvoCells[i];
+    }
+
+    public ShotResult getSalvoResult(int i) {
+        return salvoResults[i];
+    }
+
+    public Ship getSalvoSunk(int i) {
+        return salvoSunk[i];
+    }
+
+    private void publishShot(int side, int row, int col) {
+        if (!events.hasListeners()) {
+            return;
+        }
+        events.shotResolved(side, row, col, lastResult);
+        if (lastSunk != null) {
+            events.shipSunk(1 - side, indexOf(1 - side, lastSunk));
+        }
+        if (phase == Phase.GAME_OVER) {
+            events.gameOver(winner, tries[winner]);
+        }
+        events.turnEnded();
+    }
+
+    private int indexOf(int side, Ship ship) {
+        Ship[] ships = getShips(side);
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i] == ship) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Lets the side's shooter strategy pick and fire the shot
+    public ShotResult fireAuto(int side) {
+        BBoard target = getBoard(1 - side);
+        int cell;
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            cell = shooters[side].chooseTarget(target.getFogView(), random);
+            Metrics.AI_DECISION.record(System.nanoTime() - start);
+        } else {
+            cell = shooters[side].chooseTarget(target.getFogView(), random);
+        }
+        int row = cell / target.getSize();
+        int col = cell % target.getSize();
+
+        ShotResult result = fire(side, row, col);
+        shooters[side].shotResolved(row, col, result, lastSunk);
+        return result;
+    }
+
+    // Brings a rebuilt model back to life: restores the counters and lets each shooter re-observe the shots so far
+    void restore(Phase phase, int winner, int playerTries, int opponentTries) {
+        this.phase = phase;
+        this.winner = winner;
+        tries[PLAYER] = playerTries;
+        tries[OPPONENT] = opponentTries;
+        lastResult = null;
+        lastRow = -1;
+        lastCol = -1;
+        lastSunk = null;
+        for (int side = 0; side < 2; side++) {
+            shooters[side].reset(model.getBoardSize(), getShips(1 - side));
+            replayObservations(side, shooters[side]);
+        }
+    }
+
+    // Feeds the shooter every shot the side has fired so far, misses first, then the hits ship by ship
+    void replayObservations(int side, Shooter shooter) {
+        BBoard target = getBoard(1 - side);
+        int size = target.getSize();
+        BitLayer misses = target.getMissLayer();
+        for (int w = 0; w < misses.getWordCount(); w++) {
+            for (long word = misses.getWord(w); word != 0L; word &= word - 1) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+                shooter.shotResolved(cell / size, cell % size, ShotResult.MISS, null);
+            }
+        }
+        for (Ship ship : getShips(1 - side)) {
+            if (!ship.isPlaced()) {
+                continue;
+            }
+            int seen = 0;
+            for (int[] position : ship.getPositions()) {
+                if (target.cellAt(position[0], position[1]) == 'X') {
+                    seen++;
+                    boolean sinks = ship.isSunk() && seen == ship.getLength();
+                    shooter.shotResolved(position[0], position[1], sinks ? ShotResult.SUNK : ShotResult.HIT, sinks ? ship : null);
+                }
+            }
+        }
+    }
+
+    public Shooter getShooter(int side) {
+        return shooters[side];
+    }
+
+    private Phase turnPhase(int side) {
+        return side == PLAYER ? Phase.PLAYER_TURN : Phase.OPPONENT_TURN;
+    }
+
+    public BBoard getBoard(int side) {
+        return side == PLAYER ? model.getPlayerGrid() : model.getOpponentGrid();
+    }
+
+    public Ship[] getShips(int side) {
+        return side == PLAYER ? model.getPlayerShips() : model.getOpponentShips();
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public boolean isGameOver() {
+        return phase == Phase.GAME_OVER;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getTries(int side) {
+        return tries[side];
+    }
+
+    public ShotResult getLastResult() {
+        return lastResult;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public int getLastCol() {
+        return lastCol;
+    }
+
+    public Ship getLastSunk() {
+        return lastSunk;
+    }
+
+}
@@ -1,103 +1,91 @@
-import java.util.Observable;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
-public class BModel extends Observable {
+public class BModel {
 
-    static final int boardSize = 10;
-    private char[][] playerBoard;
-    private char[][] opponentBoard;
+    private final GameConfig config;
+    private final BBoard playerBoard;
+    private final BBoard opponentBoard;
 
     private final Ship[] playerShips;
     private final Ship[] opponentShips;
 
+    private final GameEvents events = new GameEvents();
+    private RandomGenerator random = new SplittableRandom(); // Shared with the engine driving this model
+
     public BModel() {
-        playerBoard = new char[boardSize][boardSize];
-        opponentBoard = new char[boardSize][boardSize];
+        this(GameConfig.classic());
+    }
+
+    public BModel(GameConfig config) {
+        this.config = config;
+        playerBoard = new BBoard(config.getBoardSize());
+        opponentBoard = new BBoard(config.getBoardSize());
+        playerShips = config.createFleet();
+        opponentShips = config.createFleet();
+    }
 
-        playerShips = new Ship[] {
-                new Ship("Carrier", 5),
-                new Ship("Battleship", 4),
-                new Ship("Cruiser", 3),
-                new Ship("Submarine", 2), // changed from length 3 to 2 to fit specification
-                new Ship("Destroyer", 2),
-        };
+    // The engine publishes placements, shots, sinks and game over here
+    public GameEvents getEvents() {
+        return events;
+    }
+
+    public void addGameListener(GameListener listener) {
+        events.add(listener);
+    }
 
-        opponentShips = new Ship[playerShips.length];
-        for (int i = 0; i < playerShips.length; i++) {
-            opponentShips[i] = new Ship(playerShips[i].getName(), playerShips[i].getLength());
-        }
+    public void removeGameListener(GameListener listener) {
+        events.remove(listener);
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    public int getBoardSize() {
+        return config.getBoardSize();
     }
 
     public void initialiseBoard() {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                playerBoard[i][j] = '-';
-                opponentBoard[i][j] = '-';
-            }
-        }
+        playerBoard.clear();
+        opponentBoard.clear();
     }
 
     public void placeShips() {
         // Place opponent ships randomly, to ensure there is no way of knowing where they are.
-        Random random = new Random();
-        for (Ship ship : opponentShips) {
-            boolean placed = false;
-            while (!placed) {
-                int row = random.nextInt(boardSize);
-                int col = random.nextInt(boardSize);
-                char orientation = random.nextBoolean() ? 'H' : 'V';
-                placed = placeShip(opponentBoard, ship, row, col, orientation);
-            }
-        }
-    }
-
-    public boolean placeShip(char[][] board, Ship ship, int startRow, int startCol, char orientation) {
-        int length = ship.getLength();
-        int[][] positions = new int[length][2];
-
-        if (orientation == 'H') { // Horizontal
-            // Out-of-bounds check
-            if (startCol < 0 || startCol + length > boardSize || startRow < 0 || startRow >= boardSize) {
-                return false;
-            }
-            for (int i = 0; i < length; i++) { // Overlap check
-                if (board[startRow][startCol + i] != '-') {
-                    return false;
-                }
-            }
-
-            for (int i = 0; i < length; i++) {
-                board[startRow][startCol + i] = 'S';
-                positions[i][0] = startRow;
-                positions[i][1] = startCol + i;
-            }
-
-        } else if (orientation == 'V') { // Vertical
-            // Out-of-bounds check
-            if (startRow < 0 || startRow + length > boardSize || startCol < 0 || startCol >= boardSize) {
-                return false;
-            }
-            for (int i = 0; i < length; i++) { // Overlap check
-                if (board[startRow + i][startCol] != '-') {
-                    return false;
-                }
-            }
-
-            for (int i = 0; i < length; i++) {
-                board[startRow + i][startCol] = 'S';
-                positions[i][0] = startRow + i;
-                positions[i][1] = startCol;
-            }
-        }
-        ship.setPositions(positions);
-        return true;
+        placeShips(opponentBoard, opponentShips, random);
+    }
+
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public static void placeShips(BBoard board, Ship[] ships, RandomGenerator random) {
+        new FleetSampler().placeShips(board, ships, random);
     }
 
+    public boolean placeShip(BBoard board, Ship ship, int startRow, int startCol, char orientation) {
+        return board.placeShip(ship, startRow, startCol, orientation);
+    }
+
+    public char fire(BBoard board, int row, int col) {
+        return board.fire(row, col);
+    }
+
+    // char[][] views are rebuilt from the bit layers, writes to them do not reach the model
     public char[][] getPlayerBoard() {
-        return playerBoard;
+        return playerBoard.toCharArray(false);
     }
 
     public char[][] getOpponentBoard() {
+        return opponentBoard.toCharArray(false);
+    }
+
+    public BBoard getPlayerGrid() {
+        return playerBoard;
+    }
+
+    public BBoard getOpponentGrid() {
         return opponentBoard;
     }
 
@@ -109,18 +97,17 @@ public class BModel extends Observable {
         return opponentShips;
     }
 
+    // Allocates a fresh copy on every call; renderers and bots should prefer the fog view or the export
     public char[][] getOpponentBoardHidden() {
-        char[][] hidden = new char[boardSize][boardSize];
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                if (opponentBoard[i][j] == 'S') { // Hide location of opponent ships
-                    hidden[i][j] = '-';
-                } else {
-                    hidden[i][j] = opponentBoard[i][j];
-                }
-            }
-        }
-        return hidden;
+        return opponentBoard.toCharArray(true);
+    }
+
+    public FogView getOpponentFogView() {
+        return opponentBoard.getFogView();
+    }
+
+    public void exportOpponentBoardHidden(char[][] buffer) {
+        opponentBoard.getFogView().exportInto(buffer);
     }
 
 }
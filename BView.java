@@ -3,49 +3,39 @@ import java.awt.*;
 
 public class BView extends JFrame {
 
-    private static final int boardSize = BModel.boardSize;
-    private final JButton[][] playerButtons;
-    private final JButton[][] opponentButtons;
+    private final BoardPanel playerBoard;
+    private final BoardPanel opponentBoard;
     private final JButton toggleOrientationButton;
+    private final JButton saveGameButton;
     private final JTextArea messageArea;
     private final JLabel gamePhaseLabel;
 
-    public BView() {
+    // Preview marks, painted by BoardPanel like any other cell state
+    public static final char PREVIEW_VALID = 'G';
+    public static final char PREVIEW_INVALID = 'R';
+
+    public BView(int boardSize) {
         setTitle("Battleships");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
         JPanel boardPanel = new JPanel(new GridLayout(1, 2));
-        JPanel playerPanel = new JPanel(new GridLayout(boardSize, boardSize));
-        JPanel opponentPanel = new JPanel(new GridLayout(boardSize, boardSize));
+        playerBoard = new BoardPanel(boardSize);
+        opponentBoard = new BoardPanel(boardSize);
 
-        playerPanel.setBorder(BorderFactory.createTitledBorder("Your Board"));
-        opponentPanel.setBorder(BorderFactory.createTitledBorder("Opponent's Board"));
-        playerButtons = new JButton[boardSize][boardSize];
-        opponentButtons = new JButton[boardSize][boardSize];
+        playerBoard.setBorder(BorderFactory.createTitledBorder("Your Board"));
+        opponentBoard.setBorder(BorderFactory.createTitledBorder("Opponent's Board"));
 
         toggleOrientationButton = new JButton("Orientation: Horizontal");
+        saveGameButton = new JButton("Save Game");
 
         gamePhaseLabel = new JLabel("Phase: Ship Placement");
         gamePhaseLabel.setFont(new Font("Dialog", Font.BOLD, 18));
         gamePhaseLabel.setHorizontalAlignment(SwingConstants.CENTER);
         add(gamePhaseLabel, BorderLayout.NORTH);
 
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                playerButtons[i][j] = new JButton("-");
-                playerPanel.add(playerButtons[i][j]);
-            }
-        }
-        boardPanel.add(playerPanel);
-
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                opponentButtons[i][j] = new JButton("-");
-                opponentPanel.add(opponentButtons[i][j]);
-            }
-        }
-        boardPanel.add(opponentPanel);
+        boardPanel.add(playerBoard);
+        boardPanel.add(opponentBoard);
         add(boardPanel, BorderLayout.CENTER);
 
         messageArea = new JTextArea(10, 40);
@@ -58,6 +48,7 @@ public class BView extends JFrame {
         JPanel controlPanel = new JPanel(new BorderLayout());
         controlPanel.add(toggleOrientationButton, BorderLayout.WEST);
         controlPanel.add(new JScrollPane(messageArea), BorderLayout.CENTER);
+        controlPanel.add(saveGameButton, BorderLayout.EAST);
         add(controlPanel, BorderLayout.SOUTH);
 
         setPreferredSize(new Dimension(1280, 800));
@@ -67,59 +58,40 @@ public class BView extends JFrame {
         setVisible(true);
     }
 
-    public JButton[][] getPlayerButtons() {
-        return playerButtons;
+    public BoardPanel getPlayerBoard() {
+        return playerBoard;
     }
 
-    public JButton[][] getOpponentButtons() {
-        return opponentButtons;
+    public BoardPanel getOpponentBoard() {
+        return opponentBoard;
     }
 
     public JButton getToggleOrientationButton() {
         return toggleOrientationButton;
     }
 
+    public JButton getSaveGameButton() {
+        return saveGameButton;
+    }
 
-    public void updateBoard(char[][] board, JButton[][] buttons) {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                char state = board[i][j];
-                switch (state) {
-                    case 'S':
-                        buttons[i][j].setBackground(Color.LIGHT_GRAY); // Show ship for player board
-                        buttons[i][j].setText("");
-                        break;
-                    case 'X':
-                        buttons[i][j].setBackground(Color.RED); // Hit
-                        buttons[i][j].setText("X");
-                        break;
-                    case 'O':
-                        buttons[i][j].setBackground(Color.WHITE); // Miss
-                        buttons[i][j].setText("O");
-                        break;
-                    default:
-                        buttons[i][j].setBackground(null);
-                        buttons[i][j].setText("-");
-                        break;
-                }
-            }
-        }
+    public void updateBoard(char[][] board, BoardPanel panel) {
+        panel.setBoard(board);
     }
 
-    public void setPlayerButtonsEnabled(boolean enabled) {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                playerButtons[i][j].setEnabled(enabled);
-            }
-        }
+    public void updateBoard(CellSource source, BoardPanel panel) {
+        panel.setBoard(source);
     }
 
-    public void setOpponentButtonsEnabled(boolean enabled) {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                opponentButtons[i][j].setEnabled(enabled);
-            }
-        }
+    public void updateCell(BoardPanel panel, int row, int col, char state) {
+        panel.setCell(row, col, state);
+    }
+
+    public void setPlayerBoardEnabled(boolean enabled) {
+        playerBoard.setEnabled(enabled);
+    }
+
+    public void setOpponentBoardEnabled(boolean enabled) {
+        opponentBoard.setEnabled(enabled);
     }
 
     public void updateGamePhase(String phaseText) {
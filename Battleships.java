@@ -1,12 +1,91 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class Battleships {
+    private static GameConfig config = GameConfig.classic();
+    private static final int MAX_ERRORS_SHOWN = 20;
+    private static MoveJournal journal; // Set by --journal, records every game started from the menu; EDT only
+    private static volatile boolean journalClosed = false;
+    private static Supplier<Shooter> ai; // Set by --ai, otherwise the engine picks the opponent's shooter
+    private static int salvoShots = 0; // Set by --salvo K, or --salvo ships for one shot per surviving ship
+    private static boolean salvoPerShip = false;
+    private static SplittableRandom seeds = new SplittableRandom(); // Seeded by --seed, one seed per game from it
+
     public static void main(String[] args) {
+        int boardSize = GameConfig.DEFAULT_BOARD_SIZE;
+        String fleet = null;
+        String journalPath = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size": boardSize = Integer.parseInt(args[i + 1]); break;
+                case "--fleet": fleet = args[i + 1]; break;
+                case "--journal": journalPath = args[i + 1]; break;
+                case "--salvo":
+                    salvoPerShip = args[i + 1].equals("ships");
+                    salvoShots = salvoPerShip ? 0 : Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed": seeds = new SplittableRandom(Long.parseLong(args[i + 1])); break;
+                case "--ai":
+                    if (args[i + 1].equals("montecarlo")) {
+                        ai = MonteCarloShooter::new; // Interactive play can spend every core on each move
+                    } else {
+                        ai = Tournament.shooter(args[i + 1]);
+                    }
+                    if (ai == null) {
+                        System.err.println("Shooters available: " + Tournament.shooterNames());
+                        System.exit(1);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        config = GameConfig.parse(boardSize, fleet);
+        if (journalPath != null) {
+            try {
+                journal = new MoveJournal(Paths.get(journalPath), config);
+            } catch (IOException ex) {
+                System.err.println("Cannot open journal: " + ex.getMessage());
+                System.exit(1);
+            }
+            // Finished games are written as they end and the windows close the journal on their way out;
+            // this only covers exits that bypass them. The close still runs on the EDT, and if the EDT does
+            // not answer, only the game in progress is lost.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (journalClosed) {
+                    return;
+                }
+                CountDownLatch closed = new CountDownLatch(1);
+                SwingUtilities.invokeLater(() -> {
+                    closeJournal();
+                    closed.countDown();
+                });
+                try {
+                    closed.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        Metrics.start();
+        Metrics.watchEdt();
         SwingUtilities.invokeLater(() -> showMainMenu());
     }
 
@@ -29,17 +108,28 @@ public class Battleships {
             JFileChooser fileChooser = new JFileChooser();
             int result = fileChooser.showOpenDialog(menuFrame);
             if (result == JFileChooser.APPROVE_OPTION) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(fileChooser.getSelectedFile()))) {
-                    String[] lines = reader.lines().toArray(String[]::new);
-                    menuFrame.dispose();
-                    launchNewGame(lines);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(menuFrame, "Error loading file: " + ex.getMessage());
+                Path path = fileChooser.getSelectedFile().toPath();
+                try {
+                    if (GameSnapshot.isSnapshot(path)) {
+                        BEngine engine = GameSnapshot.load(path);
+                        menuFrame.dispose();
+                        launchSnapshotGame(engine);
+                        return;
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    JOptionPane.showMessageDialog(menuFrame, "Error loading snapshot: " + ex.getMessage());
+                    return;
                 }
+                menuFrame.dispose();
+                launchNewGame(path);
             }
         });
 
-        exitButton.addActionListener((ActionEvent e) -> System.exit(0));
+        exitButton.addActionListener((ActionEvent e) -> {
+            closeJournal();
+            System.exit(0);
+        });
+        closeJournalOnExit(menuFrame);
 
         menuFrame.add(newGameButton);
         menuFrame.add(loadGameButton);
@@ -48,94 +138,101 @@ public class Battleships {
         menuFrame.setVisible(true);
     }
 
-    private static void launchNewGame(String[] shipLines) {
-        BModel model = new BModel();
-        BView view = new BView();
-        BController controller = new BController(model, view);
-
-        if (shipLines != null) {
-            model.initialiseBoard();
-            Ship[] playerShips = model.getPlayerShips();
-            Ship[] opponentShips = model.getOpponentShips();
-            boolean loadingError = false;
-
-            for (String line : shipLines) {
-                String[] parts = line.trim().split("\\s+");
-                if (parts.length != 5) { // Expecting an extra identifier (PLAYER/OPPONENT)
-                    JOptionPane.showMessageDialog(view, "Invalid format in file: " + line + "\nExpected: PLAYER/OPPONENT ShipName row col orientation", "Loading Error", JOptionPane.ERROR_MESSAGE);
-                    loadingError = true;
-                    break;
-                }
-
-                String boardOwner = parts[0].toUpperCase();
-                String name = parts[1];
-                try {
-                    int row = Integer.parseInt(parts[2]);
-                    int col = Integer.parseInt(parts[3]);
-                    char orientation = parts[4].toUpperCase().charAt(0);
-
-                    boolean shipPlaced = false;
-                    Ship[] targetShips = null;
-                    char[][] targetBoard = null;
-
-                    if (boardOwner.equals("PLAYER")) {
-                        targetShips = playerShips;
-                        targetBoard = model.getPlayerBoard();
-                    } else if (boardOwner.equals("OPPONENT")) {
-                        targetShips = opponentShips;
-                        targetBoard = model.getOpponentBoard();
-                    } else {
-                        JOptionPane.showMessageDialog(view, "Invalid board owner in file: " + boardOwner + ". Expected PLAYER or OPPONENT.", "Loading Error", JOptionPane.ERROR_MESSAGE);
-                        loadingError = true;
-                        break;
-                    }
-
-                    if (!loadingError && targetShips != null && targetBoard != null) {
-                        for (Ship ship : targetShips) {
-                            if (ship.getName().equalsIgnoreCase(name)) {
-                                if (model.placeShip(targetBoard, ship, row, col, orientation)) {
-                                    shipPlaced = true;
-                                    break;
-                                } else {
-                                    JOptionPane.showMessageDialog(view, "Error placing " + boardOwner.toLowerCase() + " ship '" + name + "' from file at " + row + "," + col + " (" + orientation + "). Check for overlaps or out-of-bounds placement.", "Loading Error", JOptionPane.ERROR_MESSAGE);
-                                    loadingError = true;
-                                    break;
-                                }
-                            }
-                        }
-                        if (!shipPlaced && !loadingError) {
-                            JOptionPane.showMessageDialog(view, "Unknown ship name in file for " + boardOwner + ": " + name, "Loading Error", JOptionPane.ERROR_MESSAGE);
-                            loadingError = true;
-                            break;
-                        }
-                    }
-
-                    if (loadingError) {
-                        break;
-                    }
+    private static void launchSnapshotGame(BEngine engine) {
+        config = engine.getModel().getConfig();
+        engine.setSalvo(salvoShots, salvoPerShip); // Snapshots keep the board, not the rules
+        if (ai != null) {
+            Shooter shooter = ai.get();
+            if (shooter.getClass() != engine.getShooter(BEngine.OPPONENT).getClass()) {
+                // The saved state belongs to another shooter, so the new one learns the shots from the board
+                engine.setShooter(BEngine.OPPONENT, shooter);
+                engine.replayObservations(BEngine.OPPONENT, shooter);
+            }
+        }
+        BView view = new BView(config.getBoardSize());
+        closeJournalOnExit(view);
+        BController controller = new BController(engine, view);
+        controller.resumeGame();
+    }
 
-                } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
-                    JOptionPane.showMessageDialog(view, "Invalid format in file: " + line + "\nRow and column must be numbers, orientation a single character.", "Loading Error", JOptionPane.ERROR_MESSAGE);
-                    loadingError = true;
-                    break;
+    private static void launchNewGame(Path placementFile) {
+        BModel model = new BModel(config);
+        BView view = new BView(config.getBoardSize());
+        long gameSeed = seeds.nextLong();
+        System.out.println("Game seed " + gameSeed);
+        BEngine engine = new BEngine(model, new SplittableRandom(gameSeed));
+        engine.setJournal(journal);
+        if (journal != null) {
+            model.addGameListener(new GameListener() {
+                @Override
+                public void gameOver(int winner, int tries) {
+                    flushJournal();
                 }
+            });
+        }
+        closeJournalOnExit(view);
+        engine.setSalvo(salvoShots, salvoPerShip);
+        if (ai != null) {
+            engine.setShooter(BEngine.OPPONENT, ai.get());
+        }
+        BController controller = new BController(engine, view);
+        controller.startGame();
+
+        if (placementFile != null) {
+            List<String> errors = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(placementFile, StandardCharsets.UTF_8)) {
+                new PlacementFile().load(reader, model,
+                        (line, message) -> errors.add(line == 0 ? message : "Line " + line + ": " + message));
+            } catch (IOException ex) {
+                errors.add("Error loading file: " + ex.getMessage());
             }
 
-            if (!loadingError) {
-                view.updateBoard(model.getPlayerBoard(), view.getPlayerButtons());
-                view.setPlayerButtonsEnabled(false);
+            if (errors.isEmpty()) {
+                view.updateBoard(model.getPlayerGrid(), view.getPlayerBoard());
+                view.setPlayerBoardEnabled(false);
                 view.getToggleOrientationButton().setVisible(false);
 
-                view.updateBoard(model.getOpponentBoardHidden(), view.getOpponentButtons());
+                view.updateBoard(model.getOpponentFogView(), view.getOpponentBoard());
 
                 controller.startLoadedGame();
             } else {
-                view.dispose();
+                int shown = Math.min(errors.size(), MAX_ERRORS_SHOWN);
+                String message = String.join("\n", errors.subList(0, shown))
+                        + (errors.size() > shown ? "\n... and " + (errors.size() - shown) + " more" : "");
+                JOptionPane.showMessageDialog(view, message, "Loading Error", JOptionPane.ERROR_MESSAGE);
+                controller.dispose();
                 showMainMenu();
             }
-        } else {
-            controller.startGame();
         }
     }
-}
 
+    // Both windows exit on close; their listeners run on the EDT before the exit does
+    private static void closeJournalOnExit(JFrame frame) {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeJournal();
+            }
+        });
+    }
+
+    private static void flushJournal() {
+        try {
+            journal.flush();
+        } catch (UncheckedIOException ex) {
+            System.err.println("Cannot write journal: " + ex.getCause().getMessage());
+        }
+    }
+
+    private static void closeJournal() {
+        if (journal == null || journalClosed) {
+            return;
+        }
+        journalClosed = true;
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            System.err.println("Cannot write journal: " + ex.getMessage());
+        }
+    }
+}
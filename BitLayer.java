@@ -0,0 +1,17 @@
+public interface BitLayer {
+
+    boolean get(int cell);
+    void set(int cell);
+    void clear(int cell);
+    void clearAll();
+    int cardinality();
+    // Raw 64-cell words, for snapshots and other bulk copies
+    int getWordCount();
+    long getWord(int index);
+
+    // Dense words for small boards, lazily allocated chunks once the board gets big
+    static BitLayer forCells(int cells) {
+        return cells <= Bitboard.MAX_DENSE_CELLS ? new Bitboard(cells) : new ChunkedBitboard(cells);
+    }
+
+}
@@ -0,0 +1,102 @@
+public class Bitboard implements BitLayer {
+
+    public static final int MAX_DENSE_CELLS = 256 * 256;
+
+    private final int cells;
+    private final long[] words;
+
+    public Bitboard(int cells) {
+        this.cells = cells;
+        this.words = new long[(cells + 63) >>> 6]; // Two longs cover a 10x10 board
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    @Override
+    public boolean get(int cell) {
+        return (words[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void set(int cell) {
+        words[cell >>> 6] |= 1L << cell;
+    }
+
+    @Override
+    public void clear(int cell) {
+        words[cell >>> 6] &= ~(1L << cell);
+    }
+
+    @Override
+    public void clearAll() {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = 0L;
+        }
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean intersects(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & other.words[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True when every bit set in other is also set here
+    public boolean containsAll(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            if ((other.words[i] & ~words[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void or(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    // Reads a run of words from a flat table such as PlacementTable's masks
+    public boolean intersectsMask(long[] masks, int offset) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & masks[offset + i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long getWord(int index) {
+        return words[index];
+    }
+
+    @Override
+    public int getWordCount() {
+        return words.length;
+    }
+
+}
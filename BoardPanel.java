@@ -0,0 +1,247 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+public class BoardPanel extends JComponent {
+
+    public interface BoardListener {
+        void cellClicked(int row, int col);
+        void cellEntered(int row, int col);
+        void cellExited(int row, int col);
+    }
+
+    private static final int MIN_TEXT_CELL = 14; // Below this many pixels cells are drawn as plain colour
+    private static final Color GRID_COLOR = Color.GRAY;
+
+    private final int size;
+    private final char[] cells;
+    private BoardListener listener;
+    private int hoverCell = -1;
+    private int pressedCell = -1;
+
+    public BoardPanel(int size) {
+        this.size = size;
+        cells = new char[size * size];
+        Arrays.fill(cells, '-');
+        setOpaque(true);
+        setBackground(UIManager.getColor("Button.background"));
+        setFont(new Font("Dialog", Font.BOLD, 14));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                hover(cellAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                hover(cellAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                hover(-1);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressedCell = isEnabled() ? cellAt(e.getX(), e.getY()) : -1;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) { // Like a button, a click needs press and release on one cell
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0 && cell == pressedCell && listener != null && isEnabled()) {
+                    listener.cellClicked(cell / size, cell % size);
+                }
+                pressedCell = -1;
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    public int getBoardSize() {
+        return size;
+    }
+
+    public char getCell(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    // Only a changed cell is repainted; Swing merges the dirty rectangles of one EDT cycle
+    public void setCell(int row, int col, char state) {
+        int cell = row * size + col;
+        if (cells[cell] != state) {
+            cells[cell] = state;
+            repaintCell(row, col);
+        }
+    }
+
+    public void setBoard(CellSource source) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                setCell(i, j, source.cellAt(i, j));
+            }
+        }
+    }
+
+    public void setBoard(char[][] board) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                setCell(i, j, board[i][j]);
+            }
+        }
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        if (!enabled) {
+            hover(-1);
+        }
+        super.setEnabled(enabled);
+        repaint();
+    }
+
+    private void hover(int cell) {
+        if (cell == hoverCell) {
+            return;
+        }
+        int previous = hoverCell;
+        hoverCell = isEnabled() ? cell : -1;
+        if (listener == null) {
+            return;
+        }
+        if (previous >= 0) {
+            listener.cellExited(previous / size, previous % size);
+        }
+        if (hoverCell >= 0) {
+            listener.cellEntered(hoverCell / size, hoverCell % size);
+        }
+    }
+
+    private double cellSize() {
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        return Math.max(0.001, Math.min(width, height) / (double) size); // May drop below a pixel on huge boards
+    }
+
+    private int cellAt(int x, int y) {
+        Insets insets = getInsets();
+        double cellSize = cellSize();
+        int col = (int) Math.floor((x - insets.left) / cellSize);
+        int row = (int) Math.floor((y - insets.top) / cellSize);
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            return -1;
+        }
+        return row * size + col;
+    }
+
+    private void repaintCell(int row, int col) {
+        Insets insets = getInsets();
+        double cellSize = cellSize();
+        int x = insets.left + (int) Math.floor(col * cellSize);
+        int y = insets.top + (int) Math.floor(row * cellSize);
+        int extent = (int) Math.ceil(cellSize) + 1;
+        repaint(x, y, extent, extent);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int cellSize = Math.max(2, Math.min(40, 400 / size));
+        Insets insets = getInsets();
+        return new Dimension(size * cellSize + insets.left + insets.right, size * cellSize + insets.top + insets.bottom);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (!Metrics.ENABLED) {
+            paintCells(g);
+            return;
+        }
+        long start = System.nanoTime();
+        paintCells(g);
+        Metrics.VIEW_REFRESH.record(System.nanoTime() - start);
+    }
+
+    private void paintCells(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getParent() != null ? getParent().getBackground() : getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        Insets insets = getInsets();
+        double cellSize = cellSize();
+        // Paint just the cells that intersect the clip
+        int firstCol = Math.max(0, (int) ((clip.x - insets.left) / cellSize));
+        int lastCol = Math.min(size - 1, (int) ((clip.x + clip.width - insets.left) / cellSize));
+        int firstRow = Math.max(0, (int) ((clip.y - insets.top) / cellSize));
+        int lastRow = Math.min(size - 1, (int) ((clip.y + clip.height - insets.top) / cellSize));
+        boolean drawText = cellSize >= MIN_TEXT_CELL;
+        boolean drawGrid = cellSize >= 4;
+        FontMetrics metrics = g.getFontMetrics();
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = insets.top + (int) Math.floor(row * cellSize);
+            int height = insets.top + (int) Math.floor((row + 1) * cellSize) - y;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = insets.left + (int) Math.floor(col * cellSize);
+                int width = insets.left + (int) Math.floor((col + 1) * cellSize) - x;
+                char state = cells[row * size + col];
+
+                g.setColor(colorFor(state));
+                g.fillRect(x, y, width, height);
+                if (drawGrid) {
+                    g.setColor(GRID_COLOR);
+                    g.drawRect(x, y, width - 1, height - 1);
+                }
+                String text = textFor(state);
+                if (drawText && text != null) {
+                    g.setColor(isEnabled() ? Color.BLACK : Color.GRAY);
+                    g.drawString(text, x + (width - metrics.stringWidth(text)) / 2,
+                            y + (height - metrics.getHeight()) / 2 + metrics.getAscent());
+                }
+            }
+        }
+    }
+
+    private Color colorFor(char state) {
+        switch (state) {
+            case 'S':
+                return Color.LIGHT_GRAY; // Show ship for player board
+            case 'X':
+                return Color.RED; // Hit
+            case 'O':
+                return Color.WHITE; // Miss
+            case BView.PREVIEW_VALID:
+                return Color.GREEN;
+            case BView.PREVIEW_INVALID:
+                return Color.RED;
+            default:
+                return getBackground();
+        }
+    }
+
+    private static String textFor(char state) {
+        switch (state) {
+            case 'X':
+                return "X";
+            case 'O':
+                return "O";
+            case '-':
+                return "-";
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+import java.nio.ByteBuffer;
+import java.util.random.RandomGenerator;
+
+// Wraps a shooter so that each observation state is scored once per run: the wrapped shooter's score
+// map is cached under the Zobrist hash of what has been seen, and later visits to the same state only
+// pick the best unshot cell from it. The wrapped shooter still sees every shot, so a cache miss finds
+// it up to date. Shooters that do not expose scores are passed straight through.
+public class CachingShooter implements Shooter {
+
+    private final Shooter delegate;
+    private final DecisionCache cache;
+    private final ZobristHash hash;
+
+    public CachingShooter(Shooter delegate, DecisionCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hash = new ZobristHash(delegate.getClass().getName().hashCode());
+    }
+
+    public Shooter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void reset(int boardSize, Ship[] fleet) {
+        delegate.reset(boardSize, fleet);
+        hash.reset(boardSize, fleet);
+    }
+
+    @Override
+    public int chooseTarget(FogView target, RandomGenerator random) {
+        int[] scores = cache.get(hash.get());
+        if (scores == null) {
+            scores = delegate.scoreCells(target, random);
+            if (scores == null) {
+                return delegate.chooseTarget(target, random);
+            }
+            cache.put(hash.get(), scores);
+        }
+        return Shooter.bestUnshot(scores, target, random);
+    }
+
+    @Override
+    public void chooseTargets(FogView target, RandomGenerator random, int[] cells, int k) {
+        int[] scores = cache.get(hash.get());
+        if (scores == null) {
+            scores = delegate.scoreCells(target, random);
+            if (scores == null) {
+                delegate.chooseTargets(target, random, cells, k);
+                return;
+            }
+            cache.put(hash.get(), scores);
+        }
+        Shooter.bestUnshot(scores, target, random, cells, k);
+    }
+
+    @Override
+    public int[] scoreCells(FogView target, RandomGenerator random) {
+        return delegate.scoreCells(target, random);
+    }
+
+    @Override
+    public void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk) {
+        delegate.shotResolved(row, col, result, sunk);
+        hash.observe(row, col, result, sunk);
+    }
+
+    @Override
+    public int stateSize() {
+        return delegate.stateSize();
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        delegate.writeState(out);
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        delegate.readState(in);
+    }
+
+}
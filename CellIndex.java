@@ -0,0 +1,43 @@
+import java.util.Arrays;
+
+// Maps cells to small int ids, allocating storage in chunks only where something is written
+public class CellIndex {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final int chunkLength;
+    private final int[][] chunks;
+    private final int[] usedChunks; // Chunks stay allocated once used, so a reused board does not reallocate
+    private int usedCount = 0;
+
+    public CellIndex(int cells) {
+        chunkLength = Math.min(cells, CHUNK_MASK + 1); // Small boards get one exact-size chunk
+        int chunkCount = (cells + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new int[chunkCount][];
+        usedChunks = new int[chunkCount];
+    }
+
+    public int get(int cell) {
+        int[] chunk = chunks[cell >>> CHUNK_SHIFT];
+        return chunk == null ? 0 : chunk[cell & CHUNK_MASK];
+    }
+
+    public void put(int cell, int id) {
+        int index = cell >>> CHUNK_SHIFT;
+        int[] chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new int[chunkLength];
+            chunks[index] = chunk;
+            usedChunks[usedCount++] = index;
+        }
+        chunk[cell & CHUNK_MASK] = id;
+    }
+
+    public void clearAll() {
+        for (int i = 0; i < usedCount; i++) {
+            Arrays.fill(chunks[usedChunks[i]], 0);
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+public interface CellSource {
+
+    int getSize();
+    char cellAt(int row, int col);
+
+}
@@ -0,0 +1,79 @@
+public class ChunkedBitboard implements BitLayer {
+
+    private static final int CHUNK_SHIFT = 12; // 4096 cells, 64 longs per chunk
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+
+    private final int cells;
+    private final long[][] chunks; // null until a bit in the chunk is set
+    private final int[] usedChunks;
+    private int usedCount = 0;
+
+    public ChunkedBitboard(int cells) {
+        this.cells = cells;
+        int chunkCount = (cells + (1 << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT;
+        chunks = new long[chunkCount][];
+        usedChunks = new int[chunkCount];
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    @Override
+    public boolean get(int cell) {
+        long[] chunk = chunks[cell >>> CHUNK_SHIFT];
+        return chunk != null && (chunk[(cell >>> 6) & (CHUNK_WORDS - 1)] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void set(int cell) {
+        int index = cell >>> CHUNK_SHIFT;
+        long[] chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new long[CHUNK_WORDS];
+            chunks[index] = chunk;
+            usedChunks[usedCount++] = index;
+        }
+        chunk[(cell >>> 6) & (CHUNK_WORDS - 1)] |= 1L << cell;
+    }
+
+    @Override
+    public void clear(int cell) {
+        long[] chunk = chunks[cell >>> CHUNK_SHIFT];
+        if (chunk != null) {
+            chunk[(cell >>> 6) & (CHUNK_WORDS - 1)] &= ~(1L << cell);
+        }
+    }
+
+    @Override
+    public int getWordCount() {
+        return (cells + 63) >>> 6;
+    }
+
+    @Override
+    public long getWord(int index) {
+        long[] chunk = chunks[index / CHUNK_WORDS];
+        return chunk == null ? 0L : chunk[index % CHUNK_WORDS];
+    }
+
+    // Only the chunks that were ever touched need releasing
+    @Override
+    public void clearAll() {
+        for (int i = 0; i < usedCount; i++) {
+            chunks[usedChunks[i]] = null;
+        }
+        usedCount = 0;
+    }
+
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < usedCount; i++) {
+            for (long word : chunks[usedChunks[i]]) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,100 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded map from observation hashes to the per-cell scores a shooter computed for them, shared by
+// every game of a run. Entries are spread over stripes by hash, each an access-ordered LinkedHashMap
+// under its own lock that evicts its least recently used entry once full, so threads rarely meet.
+// Cached score arrays are shared and must not be modified.
+public class DecisionCache {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DecisionCache(int capacity) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(capacity / 16, 4 * Runtime.getRuntime().availableProcessors())) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(Math.max(1, capacity / count));
+        }
+        mask = count - 1;
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (key >>> 40) & mask]; // Zobrist bits are uniform, any of them will do
+    }
+
+    public int[] get(long key) {
+        Stripe stripe = stripe(key);
+        int[] scores;
+        synchronized (stripe) {
+            scores = stripe.get(key);
+        }
+        (scores != null ? hits : misses).increment();
+        return scores;
+    }
+
+    public void put(long key, int[] scores) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, scores);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lookups, %.2f%% hits, %d entries, %d evicted",
+                getHits() + getMisses(), getHitRate() * 100, size(), getEvictions());
+    }
+
+    private class Stripe extends LinkedHashMap<Long, int[]> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public class DensityShooter implements Shooter {
+
+    private int size;
+    private PlacementTable[] tables = new PlacementTable[0]; // One per distinct ship length
+    private int[] afloat;          // Ships of each length not yet sunk
+    private boolean[][] alive;     // Placements not ruled out by a miss or a sunk ship
+    private int[][] hitsCovered;   // Unresolved hits each placement covers
+    private int[][] density;       // Live placements per cell
+    private int[][] targetDensity; // Live placements per cell that cover an unresolved hit
+    private int unresolvedHits;
+
+    @Override
+    public void reset(int boardSize, Ship[] fleet) {
+        size = boardSize;
+        int[] lengths = new int[fleet.length];
+        int distinct = 0;
+        for (Ship ship : fleet) {
+            int length = ship.getLength();
+            int index = 0;
+            while (index < distinct && lengths[index] != length) {
+                index++;
+            }
+            if (index == distinct) {
+                lengths[distinct++] = length;
+            }
+        }
+
+        if (!sameLayout(boardSize, lengths, distinct)) {
+            tables = new PlacementTable[distinct];
+            afloat = new int[distinct];
+            alive = new boolean[distinct][];
+            hitsCovered = new int[distinct][];
+            density = new int[distinct][];
+            targetDensity = new int[distinct][];
+            for (int i = 0; i < distinct; i++) {
+                tables[i] = PlacementTable.forShip(boardSize, lengths[i]);
+                alive[i] = new boolean[tables[i].getCount()];
+                hitsCovered[i] = new int[tables[i].getCount()];
+                density[i] = new int[boardSize * boardSize];
+                targetDensity[i] = new int[boardSize * boardSize];
+            }
+        }
+
+        for (int i = 0; i < tables.length; i++) {
+            afloat[i] = 0;
+            Arrays.fill(alive[i], true);
+            Arrays.fill(hitsCovered[i], 0);
+            System.arraycopy(tables[i].getCoverage(), 0, density[i], 0, density[i].length);
+            Arrays.fill(targetDensity[i], 0);
+        }
+        for (Ship ship : fleet) {
+            afloat[indexOf(ship.getLength())]++;
+        }
+        unresolvedHits = 0;
+    }
+
+    private boolean sameLayout(int boardSize, int[] lengths, int distinct) {
+        if (tables.length != distinct) {
+            return false;
+        }
+        for (int i = 0; i < distinct; i++) {
+            if (tables[i].getSize() != boardSize || tables[i].getLength() != lengths[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(int length) {
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i].getLength() == length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int chooseTarget(FogView target, RandomGenerator random) {
+        int[][] counts = unresolvedHits > 0 ? targetDensity : density;
+        int best = -1;
+        long bestScore = -1;
+        int ties = 0;
+
+        for (int cell = 0; cell < size * size; cell++) {
+            if (target.isShot(cell / size, cell % size)) {
+                continue;
+            }
+            long score = 0;
+            for (int i = 0; i < tables.length; i++) {
+                score += (long) afloat[i] * counts[i][cell];
+            }
+            if (score > bestScore) {
+                best = cell;
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) { // Uniform among equal cells
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int[] scoreCells(FogView target, RandomGenerator random) {
+        int[][] counts = unresolvedHits > 0 ? targetDensity : density;
+        int[] scores = new int[size * size];
+        for (int i = 0; i < tables.length; i++) {
+            if (afloat[i] == 0) {
+                continue;
+            }
+            for (int cell = 0; cell < scores.length; cell++) {
+                scores[cell] += afloat[i] * counts[i][cell];
+            }
+        }
+        return scores;
+    }
+
+    @Override
+    public void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk) {
+        int cell = row * size + col;
+        switch (result) {
+            case MISS:
+                ruleOut(cell);
+                break;
+            case HIT:
+                registerHit(cell);
+                break;
+            case SUNK:
+                registerHit(cell);
+                for (int[] position : sunk.getPositions()) {
+                    ruleOut(position[0] * size + position[1]);
+                }
+                unresolvedHits -= sunk.getLength();
+                afloat[indexOf(sunk.getLength())]--;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void registerHit(int cell) {
+        unresolvedHits++;
+        for (int i = 0; i < tables.length; i++) {
+            PlacementTable table = tables[i];
+            for (int p : table.getCovering(cell)) {
+                if (alive[i][p] && hitsCovered[i][p]++ == 0) {
+                    for (int k = 0; k < table.getLength(); k++) {
+                        targetDensity[i][table.getCell(p, k)]++;
+                    }
+                }
+            }
+        }
+    }
+
+    // Only placements through the shot cell change, so the cost per shot is bounded by the table fan-out
+    private void ruleOut(int cell) {
+        for (int i = 0; i < tables.length; i++) {
+            PlacementTable table = tables[i];
+            for (int p : table.getCovering(cell)) {
+                if (!alive[i][p]) {
+                    continue;
+                }
+                alive[i][p] = false;
+                boolean targeted = hitsCovered[i][p] > 0;
+                for (int k = 0; k < table.getLength(); k++) {
+                    int covered = table.getCell(p, k);
+                    density[i][covered]--;
+                    if (targeted) {
+                        targetDensity[i][covered]--;
+                    }
+                }
+            }
+        }
+    }
+
+}
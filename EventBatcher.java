@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Packs the events of one turn into an int[] of fixed-width entries and hands the batch on when the
+// turn ends. The array can cross threads or be written to a socket and replayed into a listener there.
+// Only the engine thread may publish to a batcher.
+public class EventBatcher implements GameListener {
+
+    public static final int ENTRY_SIZE = 6; // Event type and up to five arguments
+
+    private static final int NEW_GAME = 0;
+    private static final int SHIP_PLACED = 1;
+    private static final int SHOT_RESOLVED = 2;
+    private static final int SHIP_SUNK = 3;
+    private static final int GAME_OVER = 4;
+
+    private static final BEngine.ShotResult[] RESULTS = BEngine.ShotResult.values();
+
+    private final Consumer<int[]> sink;
+    private int[] entries = new int[16 * ENTRY_SIZE];
+    private int length = 0;
+
+    public EventBatcher(Consumer<int[]> sink) {
+        this.sink = sink;
+    }
+
+    public static void replay(int[] batch, GameListener target) {
+        for (int i = 0; i + ENTRY_SIZE <= batch.length; i += ENTRY_SIZE) {
+            switch (batch[i]) {
+                case NEW_GAME:
+                    target.newGame();
+                    break;
+                case SHIP_PLACED:
+                    target.shipPlaced(batch[i + 1], batch[i + 2], batch[i + 3], batch[i + 4], (char) batch[i + 5]);
+                    break;
+                case SHOT_RESOLVED:
+                    target.shotResolved(batch[i + 1], batch[i + 2], batch[i + 3], RESULTS[batch[i + 4]]);
+                    break;
+                case SHIP_SUNK:
+                    target.shipSunk(batch[i + 1], batch[i + 2]);
+                    break;
+                case GAME_OVER:
+                    target.gameOver(batch[i + 1], batch[i + 2]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown event type " + batch[i]);
+            }
+        }
+        target.turnEnded();
+    }
+
+    @Override
+    public void newGame() {
+        append(NEW_GAME, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+        append(SHIP_PLACED, owner, shipIndex, row, col, orientation);
+    }
+
+    @Override
+    public void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+        append(SHOT_RESOLVED, shooter, row, col, result.ordinal(), 0);
+    }
+
+    @Override
+    public void shipSunk(int owner, int shipIndex) {
+        append(SHIP_SUNK, owner, shipIndex, 0, 0, 0);
+    }
+
+    @Override
+    public void gameOver(int winner, int tries) {
+        append(GAME_OVER, winner, tries, 0, 0, 0);
+    }
+
+    @Override
+    public void turnEnded() {
+        if (length > 0) {
+            int[] batch = Arrays.copyOf(entries, length);
+            length = 0;
+            sink.accept(batch);
+        }
+    }
+
+    private void append(int type, int a, int b, int c, int d, int e) {
+        if (length + ENTRY_SIZE > entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[length] = type;
+        entries[length + 1] = a;
+        entries[length + 2] = b;
+        entries[length + 3] = c;
+        entries[length + 4] = d;
+        entries[length + 5] = e;
+        length += ENTRY_SIZE;
+    }
+
+}
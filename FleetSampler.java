@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public class FleetSampler implements PlacementStrategy {
+
+    private static final int RANDOM_PROBES = 64;
+    private static final int RESTARTS = 64;             // Whole-fleet resamples before falling back to a packing
+    private static final long PACKING_NODES = 1 << 20;  // Search steps spent looking for a packing
+
+    private int[] free = new int[0];
+    private long attempts; // Placements tried during the current placeShips call
+    private int packedSize;
+    private int[] packedLengths;
+    private int[] packing; // Cached for packedSize and packedLengths
+
+    // Ships go down one at a time, so an early ship can leave no room for a later one on a crowded board;
+    // then the whole fleet is resampled. A fleet that keeps running out of room gets a fixed packing
+    // under a random symmetry of the board; GameConfig has already checked that one exists.
+    @Override
+    public void placeShips(BBoard board, Ship[] ships, RandomGenerator random) {
+        boolean tabled = PlacementTable.supports(board.getSize());
+        attempts = 0;
+        boolean placed = false;
+        for (int restart = 0; restart < RESTARTS && !placed; restart++) {
+            if (restart > 0) {
+                board.clear();
+            }
+            placed = placeAll(board, ships, random, tabled);
+        }
+        if (!placed) {
+            board.clear();
+            placePacked(board, ships, random);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.PLACEMENT_ATTEMPTS.record(attempts);
+        }
+    }
+
+    private boolean placeAll(BBoard board, Ship[] ships, RandomGenerator random, boolean tabled) {
+        for (Ship ship : ships) {
+            if (!(tabled ? placeFromTable(board, ship, random) : placeByProbing(board, ship, random))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void placePacked(BBoard board, Ship[] ships, RandomGenerator random) {
+        int size = board.getSize();
+        int[] lengths = new int[ships.length];
+        for (int i = 0; i < ships.length; i++) {
+            lengths[i] = ships[i].getLength();
+        }
+        if (packing == null || packedSize != size || !Arrays.equals(packedLengths, lengths)) {
+            packing = pack(size, lengths);
+            packedSize = size;
+            packedLengths = lengths;
+        }
+        if (packing == null) {
+            throw new IllegalStateException("No room on a " + size + "x" + size + " board for the fleet");
+        }
+        boolean transpose = random.nextBoolean();
+        boolean flipRows = random.nextBoolean();
+        boolean flipCols = random.nextBoolean();
+        for (int i = 0; i < ships.length; i++) {
+            int cell = packing[i] >>> 1;
+            boolean vertical = (packing[i] & 1) == 1;
+            int row = cell / size;
+            int col = cell % size;
+            if (flipRows) {
+                row = size - 1 - (vertical ? row + lengths[i] - 1 : row); // The far end becomes the first cell
+            }
+            if (flipCols) {
+                col = size - 1 - (vertical ? col : col + lengths[i] - 1);
+            }
+            attempts++;
+            char orientation = vertical != transpose ? 'V' : 'H';
+            board.placeShip(ships[i], transpose ? col : row, transpose ? row : col, orientation);
+        }
+    }
+
+    // Each ship is drawn uniformly from the placements that do not overlap the ships already down
+    private boolean placeFromTable(BBoard board, Ship ship, RandomGenerator random) {
+        Bitboard occupied = (Bitboard) board.getShipLayer();
+        PlacementTable table = PlacementTable.forShip(board.getSize(), ship.getLength());
+        if (free.length < table.getCount()) {
+            free = new int[table.getCount()];
+        }
+        long[] masks = table.getMasks();
+        int freeCount = 0;
+        for (int p = 0; p < table.getCount(); p++) {
+            if (!occupied.intersectsMask(masks, table.getMaskOffset(p))) {
+                free[freeCount++] = p;
+            }
+        }
+        if (freeCount == 0) {
+            return false;
+        }
+        attempts++; // Drawing from the free placements never misses
+        board.placeShip(ship, table, free[random.nextInt(freeCount)]);
+        return true;
+    }
+
+    // Boards too big for tables are mostly empty, so random probes almost always land;
+    // a scan from a random start keeps the worst case bounded
+    private boolean placeByProbing(BBoard board, Ship ship, RandomGenerator random) {
+        int size = board.getSize();
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            attempts++;
+            if (board.placeShip(ship, random.nextInt(size), random.nextInt(size), random.nextBoolean() ? 'H' : 'V')) {
+                return true;
+            }
+        }
+        long cells = (long) size * size;
+        long start = random.nextLong(cells);
+        boolean vertical = random.nextBoolean();
+        for (long i = 0; i < cells * 2; i++) {
+            long cell = (start + i / 2) % cells;
+            char orientation = ((i & 1) == 0) == vertical ? 'V' : 'H';
+            attempts++;
+            if (board.placeShip(ship, (int) (cell / size), (int) (cell % size), orientation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A placement for every ship, as its first cell * 2 + 1 if vertical, or null if none was found.
+    // Filling rows longest ship first fits almost every fleet; a dense fleet on a tabled board gets a
+    // bounded search over upright and flat ships, and is reported unplaceable if that runs out too.
+    public static int[] pack(int size, int[] lengths) {
+        int[] order = sortedByLength(lengths);
+        int[] packing = new int[lengths.length];
+        int row = 0;
+        int col = 0;
+        for (int i = order.length - 1; i >= 0; i--) {
+            int ship = order[i];
+            if (col + lengths[ship] > size) {
+                row++;
+                col = 0;
+            }
+            if (row == size) {
+                return PlacementTable.supports(size) ? new Packing(size, lengths, order).search() : null;
+            }
+            packing[ship] = (row * size + col) * 2;
+            col += lengths[ship];
+        }
+        return packing;
+    }
+
+    // Ship indices by ascending length
+    private static int[] sortedByLength(int[] lengths) {
+        long[] keyed = new long[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            keyed[i] = (long) lengths[i] << 32 | i;
+        }
+        Arrays.sort(keyed);
+        int[] order = new int[lengths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) keyed[i];
+        }
+        return order;
+    }
+
+    // Depth-first over the cells in reading order: the first free cell either starts a ship, flat or
+    // upright, or stays open water while the fleet leaves enough of it
+    private static final class Packing {
+
+        private final int size;
+        private final boolean[] used;
+        private final int[] lengths;
+        private final int[] order;     // Ship indices by ascending length
+        private final boolean[] down;  // Ships placed so far, by index
+        private final int[] packing;
+        private int placedCount;
+        private int gaps;              // Open-water cells still allowed
+        private long nodes;
+
+        Packing(int size, int[] lengths, int[] order) {
+            this.size = size;
+            this.used = new boolean[size * size];
+            this.lengths = lengths;
+            this.order = order;
+            this.down = new boolean[lengths.length];
+            this.packing = new int[lengths.length];
+            gaps = size * size;
+            for (int length : lengths) {
+                gaps -= length;
+            }
+        }
+
+        int[] search() {
+            return search(0) ? packing : null;
+        }
+
+        private boolean search(int cell) {
+            while (cell < used.length && used[cell]) {
+                cell++;
+            }
+            if (placedCount == lengths.length) {
+                return true;
+            }
+            if (cell == used.length || ++nodes > PACKING_NODES) {
+                return false;
+            }
+            int previous = -1;
+            for (int i = order.length - 1; i >= 0; i--) {
+                int ship = order[i];
+                if (down[ship] || lengths[ship] == previous) {
+                    continue; // Ships of one length are interchangeable, so only the first unplaced one is tried
+                }
+                previous = lengths[ship];
+                if (cell % size + lengths[ship] <= size && put(cell, ship, 1)) {
+                    return true;
+                }
+                if (lengths[ship] > 1 && cell / size + lengths[ship] <= size && put(cell, ship, size)) {
+                    return true;
+                }
+            }
+            if (gaps > 0) {
+                gaps--;
+                used[cell] = true;
+                if (search(cell + 1)) {
+                    return true;
+                }
+                used[cell] = false;
+                gaps++;
+            }
+            return false;
+        }
+
+        private boolean put(int cell, int ship, int step) {
+            int end = cell + lengths[ship] * step;
+            for (int c = cell; c < end; c += step) {
+                if (used[c]) {
+                    return false;
+                }
+            }
+            for (int c = cell; c < end; c += step) {
+                used[c] = true;
+            }
+            down[ship] = true;
+            placedCount++;
+            packing[ship] = cell * 2 + (step == 1 ? 0 : 1);
+            if (search(cell + 1)) {
+                return true;
+            }
+            for (int c = cell; c < end; c += step) {
+                used[c] = false;
+            }
+            down[ship] = false;
+            placedCount--;
+            return false;
+        }
+    }
+
+}
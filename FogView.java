@@ -0,0 +1,40 @@
+// Read-only view of a board as its opponent sees it: reads mask out ships instead of copying the board
+public class FogView implements CellSource {
+
+    private final BBoard board;
+
+    FogView(BBoard board) {
+        this.board = board;
+    }
+
+    @Override
+    public int getSize() {
+        return board.getSize();
+    }
+
+    @Override
+    public char cellAt(int row, int col) {
+        char state = board.cellAt(row, col);
+        return state == 'S' ? '-' : state; // Hide location of ships
+    }
+
+    public boolean isShot(int row, int col) {
+        return board.isShot(row, col);
+    }
+
+    public boolean isHit(int row, int col) {
+        return board.cellAt(row, col) == 'X';
+    }
+
+    // Bulk copy into a caller-owned buffer, so renderers and bots can reuse one array
+    public void exportInto(char[][] buffer) {
+        int size = board.getSize();
+        for (int i = 0; i < size; i++) {
+            char[] row = buffer[i];
+            for (int j = 0; j < size; j++) {
+                row[j] = cellAt(i, j);
+            }
+        }
+    }
+
+}
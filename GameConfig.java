@@ -0,0 +1,155 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GameConfig {
+
+    public static final int DEFAULT_BOARD_SIZE = 10;
+    public static final int MAX_BOARD_SIZE = 46340; // Cells are indexed with an int
+
+    private final int boardSize;
+    private final String[] shipNames;
+    private final int[] shipLengths;
+
+    public GameConfig(int boardSize, String[] shipNames, int[] shipLengths) {
+        if (boardSize < 1 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        if (shipNames.length != shipLengths.length || shipNames.length == 0) {
+            throw new IllegalArgumentException("A fleet needs at least one ship, with one length per name");
+        }
+        long hull = 0;
+        for (int i = 0; i < shipLengths.length; i++) {
+            if (shipLengths[i] < 1 || shipLengths[i] > boardSize) {
+                throw new IllegalArgumentException("Ship " + shipNames[i] + " of length " + shipLengths[i] + " does not fit a " + boardSize + "x" + boardSize + " board");
+            }
+            hull += shipLengths[i];
+        }
+        if (hull > (long) boardSize * boardSize) {
+            throw new IllegalArgumentException("The fleet covers more cells than the board has");
+        }
+        if (FleetSampler.pack(boardSize, shipLengths) == null) {
+            throw new IllegalArgumentException("The fleet cannot be packed onto a " + boardSize + "x" + boardSize + " board");
+        }
+        this.boardSize = boardSize;
+        this.shipNames = shipNames.clone();
+        this.shipLengths = shipLengths.clone();
+    }
+
+    public static GameConfig classic() {
+        return new GameConfig(DEFAULT_BOARD_SIZE,
+                new String[] {"Carrier", "Battleship", "Cruiser", "Submarine", "Destroyer"},
+                new int[] {5, 4, 3, 2, 2}); // Submarine changed from length 3 to 2 to fit specification
+    }
+
+    // Fleet specs look like "Carrier:5,Battleship:4,Patrol:2*500"; repeated ships are numbered
+    public static GameConfig parse(int boardSize, String fleetSpec) {
+        if (fleetSpec == null || fleetSpec.isBlank()) {
+            GameConfig classic = classic();
+            return new GameConfig(boardSize, classic.shipNames, classic.shipLengths);
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (String entry : fleetSpec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected Name:length or Name:length*count, got: " + entry);
+            }
+            String[] lengthAndCount = parts[1].split("\\*");
+            int length = Integer.parseInt(lengthAndCount[0].trim());
+            int count = lengthAndCount.length > 1 ? Integer.parseInt(lengthAndCount[1].trim()) : 1;
+            for (int i = 1; i <= count; i++) {
+                names.add(count == 1 ? parts[0].trim() : parts[0].trim() + i);
+                lengths.add(length);
+            }
+        }
+        int[] lengthArray = new int[lengths.size()];
+        for (int i = 0; i < lengthArray.length; i++) {
+            lengthArray[i] = lengths.get(i);
+        }
+        return new GameConfig(boardSize, names.toArray(new String[0]), lengthArray);
+    }
+
+    public Ship[] createFleet() {
+        Ship[] fleet = new Ship[shipNames.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = new Ship(shipNames[i], shipLengths[i]);
+        }
+        return fleet;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getShipCount() {
+        return shipNames.length;
+    }
+
+    public String getShipName(int index) {
+        return shipNames[index];
+    }
+
+    public int getShipLength(int index) {
+        return shipLengths[index];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GameConfig)) {
+            return false;
+        }
+        GameConfig config = (GameConfig) other;
+        return boardSize == config.boardSize && Arrays.equals(shipNames, config.shipNames)
+                && Arrays.equals(shipLengths, config.shipLengths);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * boardSize + Arrays.hashCode(shipNames)) + Arrays.hashCode(shipLengths);
+    }
+
+    // Binary form shared by snapshots and journals: board size, ship count, then a UTF-8 name and length per ship
+    public int encodedSize() {
+        int size = 4 + 4;
+        for (String name : shipNames) {
+            size += 2 + name.getBytes(StandardCharsets.UTF_8).length + 4;
+        }
+        return size;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(boardSize);
+        out.putInt(shipNames.length);
+        for (int i = 0; i < shipNames.length; i++) {
+            byte[] bytes = shipNames[i].getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) bytes.length);
+            out.put(bytes);
+            out.putInt(shipLengths[i]);
+        }
+    }
+
+    public static GameConfig readFrom(ByteBuffer in) {
+        int boardSize = in.getInt();
+        String[] names = new String[in.getInt()];
+        int[] lengths = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+            lengths[i] = in.getInt();
+        }
+        return new GameConfig(boardSize, names, lengths);
+    }
+
+    public int getLongestShip() {
+        int longest = 0;
+        for (int length : shipLengths) {
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+}
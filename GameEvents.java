@@ -0,0 +1,101 @@
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Fans events out to listeners. The listener array is copied on change and swapped with a CAS, so
+// publishing takes no lock and allocates nothing.
+public class GameEvents implements GameListener {
+
+    private static final GameListener[] NONE = new GameListener[0];
+
+    private final AtomicReference<GameListener[]> listeners = new AtomicReference<>(NONE);
+
+    public void add(GameListener listener) {
+        GameListener[] current;
+        GameListener[] updated;
+        do {
+            current = listeners.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+        } while (!listeners.compareAndSet(current, updated));
+    }
+
+    public boolean remove(GameListener listener) {
+        GameListener[] current;
+        GameListener[] updated;
+        do {
+            current = listeners.get();
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            updated = new GameListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        } while (!listeners.compareAndSet(current, updated));
+        return true;
+    }
+
+    public boolean hasListeners() {
+        return listeners.get().length > 0;
+    }
+
+    // Delivers a turn's events together, on whatever thread the executor runs them
+    public static GameListener batched(GameListener target, Executor executor) {
+        return new EventBatcher(batch -> executor.execute(() -> EventBatcher.replay(batch, target)));
+    }
+
+    public static GameListener onEdt(GameListener target) {
+        return batched(target, SwingUtilities::invokeLater);
+    }
+
+    @Override
+    public void newGame() {
+        for (GameListener listener : listeners.get()) {
+            listener.newGame();
+        }
+    }
+
+    @Override
+    public void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+        for (GameListener listener : listeners.get()) {
+            listener.shipPlaced(owner, shipIndex, row, col, orientation);
+        }
+    }
+
+    @Override
+    public void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+        for (GameListener listener : listeners.get()) {
+            listener.shotResolved(shooter, row, col, result);
+        }
+    }
+
+    @Override
+    public void shipSunk(int owner, int shipIndex) {
+        for (GameListener listener : listeners.get()) {
+            listener.shipSunk(owner, shipIndex);
+        }
+    }
+
+    @Override
+    public void gameOver(int winner, int tries) {
+        for (GameListener listener : listeners.get()) {
+            listener.gameOver(winner, tries);
+        }
+    }
+
+    @Override
+    public void turnEnded() {
+        for (GameListener listener : listeners.get()) {
+            listener.turnEnded();
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+// Typed game events; every method defaults to doing nothing so listeners pick what they need.
+// Sides are BEngine.PLAYER or BEngine.OPPONENT and ships are indexes into that side's fleet.
+public interface GameListener {
+
+    default void newGame() {
+    }
+
+    default void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+    }
+
+    default void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+    }
+
+    default void shipSunk(int owner, int shipIndex) {
+    }
+
+    default void gameOver(int winner, int tries) {
+    }
+
+    // Closes the events of one engine call, such as a shot and the sink and game over it caused
+    default void turnEnded() {
+    }
+
+}
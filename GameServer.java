@@ -0,0 +1,282 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hosts many games over a line-based TCP protocol, one thread per connection.
+//
+//   server: HELLO <size>, FLEET Name:len,...        on connect
+//   client: NEW AI | NEW PVP                          server: GAME <id> PLAYER|OPPONENT, or WAIT until paired
+//   client: PLACE <ship> <row> <col> H|V | AUTO       server: PLACED ... lines, then OK or ERR <reason>
+//   client: READY                                     server: OK; START and TURN once both fleets are in
+//   client: FIRE <row> <col>                          server: SHOT/INCOMING <row> <col> MISS|HIT|SUNK|REPEAT,
+//                                                     SUNK/LOST <ship>, GAMEOVER WIN|LOSE <tries>, TURN, then OK
+//   client: QUIT
+public class GameServer {
+
+    private static final int CONNECTION_STACK_SIZE = 256 * 1024; // Only used when there are no virtual threads
+
+    private final GameConfig config;
+    private final String fleetLine;
+    private final GameStore store; // Games are parked off-heap between commands
+    private final ExecutorService connections = newPerTaskExecutor("battleships-connection");
+    private final AtomicLong nextGameId = new AtomicLong();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder gamesFinished = new LongAdder();
+
+    private final Object lobby = new Object();
+    private Connection waiting; // A player looking for a PVP opponent, guarded by lobby
+
+    public GameServer(GameConfig config) {
+        this.config = config;
+        this.store = new GameStore(config);
+        StringBuilder fleet = new StringBuilder("FLEET ");
+        for (int i = 0; i < config.getShipCount(); i++) {
+            fleet.append(i == 0 ? "" : ",").append(config.getShipName(i)).append(':').append(config.getShipLength(i));
+        }
+        fleetLine = fleet.toString();
+    }
+
+    // One virtual thread per task where the JDK has them, otherwise small-stack platform threads
+    static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threads = task -> {
+                Thread thread = new Thread(null, task, name + "-" + count.incrementAndGet(), CONNECTION_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threads);
+        }
+    }
+
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 4096)) {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                open.incrementAndGet();
+                connections.execute(new Connection(socket));
+            }
+        } finally {
+            connections.shutdownNow();
+        }
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public long getGamesFinished() {
+        return gamesFinished.sum();
+    }
+
+    public GameStore getStore() {
+        return store;
+    }
+
+    private class Connection implements Runnable, ServerSession.Seat {
+
+        private final Socket socket;
+        private final Writer out;
+        private volatile ServerSession session;
+        private volatile int side;
+        private volatile Thread thread;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 1024);
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1024)) {
+                send("HELLO " + config.getBoardSize());
+                send(fleetLine);
+                flushNow();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String reply = handle(line.trim().split(" "));
+                    if (reply == null) {
+                        break;
+                    }
+                    send(reply);
+                    flushNow();
+                }
+            } catch (IOException ex) {
+                // The client went away; the finally block tidies up
+            } finally {
+                leave();
+                synchronized (lobby) {
+                    if (waiting == this) {
+                        waiting = null;
+                    }
+                }
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    // Already closed
+                }
+                open.decrementAndGet();
+            }
+        }
+
+        // Returns the reply line, or null to hang up
+        private String handle(String[] command) {
+            try {
+                switch (command[0].toUpperCase()) {
+                    case "NEW":
+                        return newGame(command.length > 1 ? command[1].toUpperCase() : "AI");
+                    case "PLACE":
+                        return requireSession() ? session.place(side, command[1], Integer.parseInt(command[2]),
+                                Integer.parseInt(command[3]), Character.toUpperCase(command[4].charAt(0))) : "ERR no game";
+                    case "AUTO":
+                        return requireSession() ? session.autoPlace(side) : "ERR no game";
+                    case "READY":
+                        return requireSession() ? session.ready(side) : "ERR no game";
+                    case "FIRE":
+                        return requireSession() ? session.fire(side, Integer.parseInt(command[1]), Integer.parseInt(command[2])) : "ERR no game";
+                    case "QUIT":
+                        return null;
+                    default:
+                        return "ERR unknown command " + command[0];
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                return "ERR malformed command";
+            }
+        }
+
+        private boolean requireSession() {
+            ServerSession current = session;
+            if (current != null && current.isFinished()) {
+                leave();
+            }
+            return session != null;
+        }
+
+        private String newGame(String mode) {
+            synchronized (lobby) {
+                if (waiting == this) {
+                    waiting = null; // Any new game, PVP included, replaces the wait
+                }
+            }
+            leave();
+            if (mode.equals("AI")) {
+                side = BEngine.PLAYER;
+                session = new ServerSession(nextGameId.incrementAndGet(), store, this, null);
+                return "GAME " + session.getId() + " PLAYER";
+            }
+            if (!mode.equals("PVP")) {
+                return "ERR mode must be AI or PVP";
+            }
+            synchronized (lobby) {
+                if (waiting == null) {
+                    waiting = this;
+                    return "WAIT";
+                }
+                Connection first = waiting;
+                waiting = null;
+                ServerSession paired = new ServerSession(nextGameId.incrementAndGet(), store, first, this);
+                first.leave(); // Releases anything the waiting side still holds before its session is replaced
+                first.side = BEngine.PLAYER;
+                first.session = paired;
+                first.send("GAME " + paired.getId() + " PLAYER");
+                first.flush();
+                side = BEngine.OPPONENT;
+                session = paired;
+                return "GAME " + paired.getId() + " OPPONENT";
+            }
+        }
+
+        private void leave() {
+            ServerSession current = session;
+            if (current != null) {
+                if (current.leave(side)) {
+                    gamesFinished.increment();
+                }
+                session = null;
+            }
+        }
+
+        @Override
+        public void send(String line) {
+            synchronized (out) {
+                try {
+                    out.write(line);
+                    out.write('\n');
+                } catch (IOException ex) {
+                    // Reported when the connection thread next reads
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (Thread.currentThread() == thread) {
+                return; // This connection's own command; its reply flushes everything in one write
+            }
+            flushNow();
+        }
+
+        private void flushNow() {
+            synchronized (out) {
+                try {
+                    out.flush();
+                } catch (IOException ex) {
+                    // Reported when the connection thread next reads
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 7777;
+        int boardSize = GameConfig.DEFAULT_BOARD_SIZE;
+        String fleet = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--size": boardSize = Integer.parseInt(args[i + 1]); break;
+                case "--fleet": fleet = args[i + 1]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        GameServer server = new GameServer(GameConfig.parse(boardSize, fleet));
+        Thread stats = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                System.out.printf("%d connections, %d games finished, %d games parked in %d KB off-heap%n",
+                        server.getOpenConnections(), server.getGamesFinished(), server.getStore().size(),
+                        server.getStore().getReservedBytes() / 1024);
+            }
+        }, "battleships-stats");
+        stats.setDaemon(true);
+        stats.start();
+        Metrics.start();
+        System.out.println("Battleships server listening on port " + port);
+        server.serve(port);
+    }
+
+}
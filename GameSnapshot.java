@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Versioned binary snapshot of a whole game: config, both fleets, shot layers, counters, phase and AI state
+public class GameSnapshot {
+
+    public static final int MAGIC = 0x42534E50; // "BSNP"
+    public static final short VERSION = 1;
+
+    private static final long MAP_THRESHOLD = 1 << 20; // Files bigger than this are memory-mapped
+
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the magic number is in
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    public static void save(BEngine engine, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(engine));
+        write(engine, buffer);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static BEngine load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size > MAP_THRESHOLD) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer = mapped;
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Read the whole file
+                }
+                buffer.flip();
+            }
+            return read(buffer, null);
+        }
+    }
+
+    public static int sizeOf(BEngine engine) {
+        GameConfig config = engine.getModel().getConfig();
+        int size = 4 + 2 + config.encodedSize(); // Magic, version, config
+        size += 1 + 1 + 4 + 4; // Phase, winner, tries
+        for (int side = 0; side < 2; side++) {
+            BBoard board = engine.getBoard(side);
+            size += config.getShipCount() * 5;
+            size += 4 + 8 * board.getHitLayer().getWordCount() + 8 * board.getMissLayer().getWordCount();
+            Shooter shooter = engine.getShooter(side);
+            size += 2 + shooter.getClass().getName().getBytes(StandardCharsets.UTF_8).length + 4 + shooter.stateSize();
+        }
+        return size;
+    }
+
+    public static void write(BEngine engine, ByteBuffer out) {
+        GameConfig config = engine.getModel().getConfig();
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        config.writeTo(out);
+
+        out.put((byte) engine.getPhase().ordinal());
+        out.put((byte) engine.getWinner());
+        out.putInt(engine.getTries(BEngine.PLAYER));
+        out.putInt(engine.getTries(BEngine.OPPONENT));
+
+        for (int side = 0; side < 2; side++) {
+            BBoard board = engine.getBoard(side);
+            int size = board.getSize();
+            for (Ship ship : engine.getShips(side)) {
+                if (ship.isPlaced()) {
+                    int[][] positions = ship.getPositions();
+                    out.putInt(positions[0][0] * size + positions[0][1]);
+                    out.put((byte) ship.getOrientation());
+                } else {
+                    out.putInt(-1);
+                    out.put((byte) 0);
+                }
+            }
+            BitLayer hits = board.getHitLayer();
+            BitLayer misses = board.getMissLayer();
+            out.putInt(hits.getWordCount());
+            for (int w = 0; w < hits.getWordCount(); w++) {
+                out.putLong(hits.getWord(w));
+            }
+            for (int w = 0; w < misses.getWordCount(); w++) {
+                out.putLong(misses.getWord(w));
+            }
+        }
+
+        for (int side = 0; side < 2; side++) {
+            Shooter shooter = engine.getShooter(side);
+            putString(out, shooter.getClass().getName());
+            out.putInt(shooter.stateSize());
+            shooter.writeState(out);
+        }
+    }
+
+    // Rebuilds into reuse when its config matches the snapshot, otherwise into a new engine
+    public static BEngine read(ByteBuffer in, BEngine reuse) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a Battleships snapshot");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        }
+        GameConfig config = GameConfig.readFrom(in);
+        int boardSize = config.getBoardSize();
+
+        BEngine engine = reuse;
+        if (engine == null || !engine.getModel().getConfig().equals(config)) {
+            engine = new BEngine(new BModel(config));
+        }
+        engine.newGame(false);
+
+        BEngine.Phase phase = BEngine.Phase.values()[in.get()];
+        int winner = in.get();
+        int playerTries = in.getInt();
+        int opponentTries = in.getInt();
+
+        for (int side = 0; side < 2; side++) {
+            BBoard board = engine.getBoard(side);
+            for (Ship ship : engine.getShips(side)) {
+                int start = in.getInt();
+                char orientation = (char) in.get();
+                if (start >= 0 && !board.placeShip(ship, start / boardSize, start % boardSize, orientation)) {
+                    throw new IllegalArgumentException("Snapshot has overlapping or out-of-bounds ship " + ship.getName());
+                }
+            }
+            int wordCount = in.getInt();
+            int hitsAt = in.position();
+            in.position(hitsAt + 8 * wordCount);
+            for (int w = 0; w < wordCount; w++) {
+                for (long word = in.getLong(); word != 0L; word &= word - 1) {
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+                    if (board.shipAt(cell / boardSize, cell % boardSize) != null) {
+                        throw new IllegalArgumentException("Snapshot records a miss on a ship at cell " + cell);
+                    }
+                    board.fire(cell / boardSize, cell % boardSize);
+                }
+            }
+            int missesEnd = in.position();
+            in.position(hitsAt);
+            for (int w = 0; w < wordCount; w++) {
+                for (long word = in.getLong(); word != 0L; word &= word - 1) {
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+                    Ship ship = board.shipAt(cell / boardSize, cell % boardSize);
+                    if (ship == null || board.fire(cell / boardSize, cell % boardSize) != 'X') {
+                        throw new IllegalArgumentException("Snapshot records a hit on open water at cell " + cell);
+                    }
+                    ship.registerHit();
+                }
+            }
+            in.position(missesEnd);
+        }
+
+        engine.restore(phase, winner, playerTries, opponentTries);
+
+        for (int side = 0; side < 2; side++) {
+            String shooterName = getString(in);
+            int stateSize = in.getInt();
+            int stateEnd = in.position() + stateSize;
+            if (shooterName.equals(engine.getShooter(side).getClass().getName())) {
+                engine.getShooter(side).readState(in);
+            }
+            in.position(stateEnd); // State for a different shooter is skipped; it re-observed the shots instead
+        }
+        return engine;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
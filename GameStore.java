@@ -0,0 +1,220 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Parks games off-heap in fixed-size slots of direct ByteBuffers. A classic 10x10 game takes 51 bytes:
+//
+//   byte   phase in the low bits, winner + 1 above them
+//   int    tries per side
+//   per side: one placement per ship (start cell * 2 + 1 if vertical, all ones if unplaced), 1, 2 or 4 bytes wide
+//   per side: the shot layer, the cells that side's board has taken fire on
+//
+// Hits are the shots that land on a ship, and shooters rebuild their state from the shots on inflate,
+// so nothing else needs storing. Free slots are chained through their own first four bytes.
+// A slot must only be used by one thread at a time; allocating and freeing are synchronized.
+public class GameStore {
+
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    private static final int MAX_SEGMENT_SLOTS = 1 << 16;
+    private static final BEngine.Phase[] PHASES = BEngine.Phase.values();
+
+    private final GameConfig config;
+    private final int cells;
+    private final int placementWidth;
+    private final int shotWords;
+    private final int recordSize;
+    private final int slotsPerSegment;
+
+    private ByteBuffer[] segments = new ByteBuffer[4];
+    private int segmentCount = 0;
+    private int freeHead = -1;
+    private int nextUnused = 0;
+    private int live = 0;
+
+    // Engines lent out by inflate; parked games hold no engine at all
+    private final ConcurrentLinkedQueue<BEngine> engines = new ConcurrentLinkedQueue<>();
+
+    public GameStore(GameConfig config) {
+        this.config = config;
+        this.cells = config.getBoardSize() * config.getBoardSize();
+        long placementRange = 2L * cells + 1; // Doubled cell plus orientation, and the unplaced marker
+        placementWidth = placementRange <= 0xFF ? 1 : placementRange <= 0xFFFF ? 2 : 4;
+        shotWords = (cells + 63) >>> 6;
+        recordSize = 1 + 2 * 4 + 2 * (config.getShipCount() * placementWidth + shotWords * 8);
+        slotsPerSegment = Math.max(1, Math.min(MAX_SEGMENT_SLOTS, MAX_SEGMENT_BYTES / recordSize));
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    public synchronized int size() {
+        return live;
+    }
+
+    public synchronized long getReservedBytes() {
+        return (long) segmentCount * slotsPerSegment * recordSize;
+    }
+
+    public synchronized int allocate() {
+        int slot;
+        if (freeHead >= 0) {
+            slot = freeHead;
+            freeHead = segment(slot).getInt(offset(slot));
+        } else {
+            if (nextUnused == segmentCount * slotsPerSegment) {
+                addSegment();
+            }
+            slot = nextUnused++;
+        }
+        live++;
+        return slot;
+    }
+
+    public synchronized void free(int slot) {
+        segment(slot).putInt(offset(slot), freeHead);
+        freeHead = slot;
+        live--;
+    }
+
+    private void addSegment() {
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segments[segmentCount++] = ByteBuffer.allocateDirect(slotsPerSegment * recordSize);
+    }
+
+    private ByteBuffer segment(int slot) {
+        return segments[slot / slotsPerSegment];
+    }
+
+    private int offset(int slot) {
+        return (slot % slotsPerSegment) * recordSize;
+    }
+
+    // Deflates the engine into the slot
+    public void write(int slot, BEngine engine) {
+        ByteBuffer segment;
+        synchronized (this) { // Only the segment table can change under us
+            segment = segment(slot);
+        }
+        int at = offset(slot);
+        int size = config.getBoardSize();
+        segment.put(at, (byte) (engine.getPhase().ordinal() | (engine.getWinner() + 1) << 2));
+        segment.putInt(at + 1, engine.getTries(BEngine.PLAYER));
+        segment.putInt(at + 5, engine.getTries(BEngine.OPPONENT));
+        at += 9;
+        for (int side = 0; side < 2; side++) {
+            for (Ship ship : engine.getShips(side)) {
+                int code = -1;
+                if (ship.isPlaced()) {
+                    int[] start = ship.getPositions()[0];
+                    code = (start[0] * size + start[1]) * 2 + (ship.getOrientation() == 'V' ? 1 : 0);
+                }
+                putPlacement(segment, at, code);
+                at += placementWidth;
+            }
+            BBoard board = engine.getBoard(side);
+            BitLayer hits = board.getHitLayer();
+            BitLayer misses = board.getMissLayer();
+            for (int w = 0; w < shotWords; w++, at += 8) {
+                segment.putLong(at, hits.getWord(w) | misses.getWord(w));
+            }
+        }
+    }
+
+    // Rebuilds the slot's game in engine, which must have been built for this store's config
+    public void read(int slot, BEngine engine) {
+        ByteBuffer segment;
+        synchronized (this) {
+            segment = segment(slot);
+        }
+        int at = offset(slot);
+        int size = config.getBoardSize();
+        engine.getModel().initialiseBoard(); // restore below resets the rest of the engine
+        int header = segment.get(at);
+        int playerTries = segment.getInt(at + 1);
+        int opponentTries = segment.getInt(at + 5);
+        at += 9;
+        for (int side = 0; side < 2; side++) {
+            BBoard board = engine.getBoard(side);
+            for (Ship ship : engine.getShips(side)) {
+                ship.reset();
+                int code = getPlacement(segment, at);
+                at += placementWidth;
+                if (code >= 0) {
+                    int start = code >>> 1;
+                    board.placeShip(ship, start / size, start % size, (code & 1) == 1 ? 'V' : 'H');
+                }
+            }
+            for (int w = 0; w < shotWords; w++, at += 8) {
+                for (long word = segment.getLong(at); word != 0L; word &= word - 1) {
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+                    if (board.fire(cell / size, cell % size) == 'X') {
+                        board.shipAt(cell / size, cell % size).registerHit();
+                    }
+                }
+            }
+        }
+        engine.restore(PHASES[header & 3], (header >>> 2) - 1, playerTries, opponentTries);
+    }
+
+    // Lends out a pooled engine holding the slot's game; hand it back with park
+    public BEngine inflate(int slot) {
+        BEngine engine = borrow();
+        read(slot, engine);
+        return engine;
+    }
+
+    // Lends out a pooled engine in whatever state its last game left it, for starting a new game
+    public BEngine borrow() {
+        BEngine engine = engines.poll();
+        return engine != null ? engine : new BEngine(new BModel(config));
+    }
+
+    public BEngine.Phase getPhase(int slot) {
+        ByteBuffer segment;
+        synchronized (this) {
+            segment = segment(slot);
+        }
+        return PHASES[segment.get(offset(slot)) & 3];
+    }
+
+    public void park(int slot, BEngine engine) {
+        write(slot, engine);
+        engines.offer(engine);
+    }
+
+    private void putPlacement(ByteBuffer segment, int at, int code) {
+        switch (placementWidth) {
+            case 1:
+                segment.put(at, (byte) code);
+                break;
+            case 2:
+                segment.putShort(at, (short) code);
+                break;
+            default:
+                segment.putInt(at, code);
+        }
+    }
+
+    private int getPlacement(ByteBuffer segment, int at) {
+        switch (placementWidth) {
+            case 1: {
+                int code = segment.get(at) & 0xFF;
+                return code == 0xFF ? -1 : code;
+            }
+            case 2: {
+                int code = segment.getShort(at) & 0xFFFF;
+                return code == 0xFFFF ? -1 : code;
+            }
+            default:
+                return segment.getInt(at);
+        }
+    }
+
+}
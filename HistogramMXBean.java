@@ -0,0 +1,13 @@
+// Read side of a LogLinearHistogram as seen through JMX; values are in the histogram's own unit
+public interface HistogramMXBean {
+
+    long getCount();
+    double getMean();
+    long getMax();
+    long getMedian();
+    long get90thPercentile();
+    long get99thPercentile();
+    long get999thPercentile();
+    void reset();
+
+}
@@ -0,0 +1,112 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public class HuntTargetShooter implements Shooter {
+
+    private int[] hitQueue = new int[16]; // Hit cells, grown on demand so huge boards cost nothing up front
+    private int hitQueueSize = 0;
+    private int size;
+
+    @Override
+    public void reset(int boardSize, Ship[] fleet) {
+        size = boardSize;
+        hitQueueSize = 0;
+    }
+
+    @Override
+    public int chooseTarget(FogView target, RandomGenerator random) {
+        for (int i = 0; i < hitQueueSize; i++) {
+            int hitRow = hitQueue[i] / size;
+            int hitCol = hitQueue[i] % size;
+
+            int[][] neighbors = {
+                    {hitRow - 1, hitCol},
+                    {hitRow + 1, hitCol},
+                    {hitRow, hitCol - 1},
+                    {hitRow, hitCol + 1}
+            };
+
+            for (int[] n : neighbors) {
+                int r = n[0], c = n[1];
+                if (r >= 0 && r < size && c >= 0 && c < size) {
+                    if (!target.isShot(r, c)) {
+                        return r * size + c;
+                    }
+                }
+            }
+        }
+        return RandomShooter.randomUnshotCell(target, random);
+    }
+
+    // Every open neighbour of the queued hits goes into the salvo before any random cell does
+    @Override
+    public void chooseTargets(FogView target, RandomGenerator random, int[] cells, int k) {
+        int count = 0;
+        for (int i = 0; i < hitQueueSize && count < k; i++) {
+            int hitRow = hitQueue[i] / size;
+            int hitCol = hitQueue[i] % size;
+            for (int d = 0; d < 4 && count < k; d++) {
+                int r = hitRow + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                int c = hitCol + (d == 2 ? -1 : d == 3 ? 1 : 0);
+                if (r < 0 || r >= size || c < 0 || c >= size || target.isShot(r, c)) {
+                    continue;
+                }
+                int cell = r * size + c;
+                boolean taken = false;
+                for (int j = 0; j < count && !taken; j++) {
+                    taken = cells[j] == cell;
+                }
+                if (!taken) {
+                    cells[count++] = cell;
+                }
+            }
+        }
+        Shooter.fillRandom(target, random, cells, count, k);
+    }
+
+    @Override
+    public void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk) {
+        if (result == BEngine.ShotResult.HIT || result == BEngine.ShotResult.SUNK) {
+            if (hitQueueSize == hitQueue.length) {
+                hitQueue = Arrays.copyOf(hitQueue, hitQueueSize * 2);
+            }
+            hitQueue[hitQueueSize++] = row * size + col;
+        }
+        if (result == BEngine.ShotResult.SUNK) { // Drop the sunk ship's cells so they are not probed again
+            int kept = 0;
+            for (int i = 0; i < hitQueueSize; i++) {
+                if (!sunk.occupies(hitQueue[i] / size, hitQueue[i] % size)) {
+                    hitQueue[kept++] = hitQueue[i];
+                }
+            }
+            hitQueueSize = kept;
+        }
+    }
+
+    // Queue order decides which hit is worked next, so it is saved rather than rebuilt
+    @Override
+    public int stateSize() {
+        return 4 + 4 * hitQueueSize;
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putInt(hitQueueSize);
+        for (int i = 0; i < hitQueueSize; i++) {
+            out.putInt(hitQueue[i]);
+        }
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        hitQueueSize = in.getInt();
+        if (hitQueue.length < hitQueueSize) {
+            hitQueue = new int[hitQueueSize];
+        }
+        for (int i = 0; i < hitQueueSize; i++) {
+            hitQueue[i] = in.getInt();
+        }
+    }
+
+}
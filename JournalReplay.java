@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Rebuilds games from a MoveJournal by re-applying its records to a headless engine
+public class JournalReplay {
+
+    private static final long WINDOW_SIZE = (1L << 30) / MoveJournal.RECORD_SIZE * MoveJournal.RECORD_SIZE;
+
+    private final Path path;
+    private final GameConfig config;
+    private final long dataStart;
+
+    public JournalReplay(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 1 << 20));
+            if (header.remaining() < 6 || header.getInt() != MoveJournal.MAGIC) {
+                throw new IllegalArgumentException("Not a Battleships move journal");
+            }
+            short version = header.getShort();
+            if (version != MoveJournal.VERSION) {
+                throw new IllegalArgumentException("Unsupported journal version " + version);
+            }
+            config = GameConfig.readFrom(header);
+            dataStart = header.position();
+        }
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    // Hands the engine to the consumer at the end of each game; the engine is reused, so copy what you keep
+    public long forEachGame(Consumer<BEngine> consumer) throws IOException {
+        BEngine engine = new BEngine(new BModel(config));
+        Scan scan = new Scan(engine, -1, Integer.MAX_VALUE, consumer);
+        scan.run();
+        if (scan.games > 0) {
+            consumer.accept(engine);
+        }
+        return scan.games;
+    }
+
+    // The state of one game (counting from 0) after its first shots shots; pass Integer.MAX_VALUE for the end
+    public BEngine replay(long game, int shots) throws IOException {
+        BEngine engine = new BEngine(new BModel(config));
+        Scan scan = new Scan(engine, game, shots, null);
+        scan.run();
+        if (scan.games <= game) {
+            throw new IllegalArgumentException("Journal has only " + scan.games + " games");
+        }
+        // Counters and boards are already right; this lets the shooters catch up on what they have seen
+        engine.restore(engine.getPhase(), engine.getWinner(), engine.getTries(BEngine.PLAYER), engine.getTries(BEngine.OPPONENT));
+        return engine;
+    }
+
+    private class Scan {
+
+        private final BEngine engine;
+        private final long target; // -1 applies every game
+        private final int shotLimit;
+        private final Consumer<BEngine> consumer;
+        private final int size = config.getBoardSize();
+
+        private long games = 0;
+        private int shots = 0;
+        private boolean done = false;
+
+        // A salvo's shots are gathered and fired together once the last one is read
+        private int salvoSize = 0;
+        private int salvoSide;
+        private int salvoHave = 0;
+        private int[] salvoCells = new int[16];
+        private int[] salvoExpected = new int[16];
+
+        Scan(BEngine engine, long target, int shotLimit, Consumer<BEngine> consumer) {
+            this.engine = engine;
+            this.target = target;
+            this.shotLimit = shotLimit;
+            this.consumer = consumer;
+        }
+
+        void run() throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long end = channel.size();
+                for (long position = dataStart; position < end && !done; position += WINDOW_SIZE) {
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, end - position));
+                    int limit = window.limit() - MoveJournal.RECORD_SIZE;
+                    for (int at = 0; at <= limit && !done; at += MoveJournal.RECORD_SIZE) {
+                        apply(window, at);
+                    }
+                }
+            }
+        }
+
+        private void apply(ByteBuffer records, int at) {
+            byte type = records.get(at);
+            int side = records.get(at + 1);
+            int detail = records.get(at + 2);
+            int a = records.getInt(at + 4);
+            int b = records.getInt(at + 8);
+
+            if (type == MoveJournal.NEW_GAME) {
+                if (target >= 0 && games > target) {
+                    done = true;
+                    return;
+                }
+                if (consumer != null && games > 0) {
+                    consumer.accept(engine);
+                }
+                games++;
+                shots = 0;
+                if (a != size || b != config.getShipCount()) {
+                    throw new IllegalStateException("Game " + (games - 1) + " was played with a different board or fleet");
+                }
+                if (applying()) {
+                    engine.newGame(false);
+                }
+                return;
+            }
+            if (!applying()) {
+                return; // Games before the target are skipped record by record
+            }
+            switch (type) {
+                case MoveJournal.PLACE:
+                    Ship ship = engine.getShips(side)[a];
+                    if (!engine.placeShip(side, ship, b / size, b % size, (char) detail)) {
+                        throw new IllegalStateException("Game " + (games - 1) + " places " + ship.getName() + " illegally");
+                    }
+                    break;
+                case MoveJournal.START:
+                    engine.startBattle(side);
+                    break;
+                case MoveJournal.SEED:
+                    break; // Replay follows the recorded moves, the seed is there for rerunning the game
+
+                case MoveJournal.SALVO:
+                    if (shots + a > shotLimit) {
+                        done = target >= 0;
+                        return;
+                    }
+                    if (salvoCells.length < a) {
+                        salvoCells = new int[a];
+                        salvoExpected = new int[a];
+                    }
+                    salvoSize = a;
+                    salvoSide = side;
+                    salvoHave = 0;
+                    break;
+                case MoveJournal.SHOT:
+                    if (salvoSize > 0) {
+                        salvoCells[salvoHave] = a;
+                        salvoExpected[salvoHave++] = detail;
+                        if (salvoHave == salvoSize) {
+                            fireSalvo();
+                        }
+                        break;
+                    }
+                    if (shots == shotLimit) {
+                        done = target >= 0;
+                        return;
+                    }
+                    shots++;
+                    BEngine.ShotResult result = engine.fire(side, a / size, a % size);
+                    if (result.ordinal() != detail) {
+                        throw new IllegalStateException("Game " + (games - 1) + " diverges at shot " + shots
+                                + ": journal says " + BEngine.ShotResult.values()[detail] + ", replay gives " + result);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        }
+
+        private void fireSalvo() {
+            engine.setSalvo(salvoSize, false);
+            engine.fireSalvo(salvoSide, salvoCells, salvoSize);
+            for (int i = 0; i < salvoSize; i++) {
+                if (engine.getSalvoResult(i).ordinal() != salvoExpected[i]) {
+                    throw new IllegalStateException("Game " + (games - 1) + " diverges at shot " + (shots + i + 1)
+                            + ": journal says " + BEngine.ShotResult.values()[salvoExpected[i]] + ", replay gives " + engine.getSalvoResult(i));
+                }
+            }
+            shots += salvoSize;
+            salvoSize = 0;
+        }
+
+        private boolean applying() {
+            return target < 0 || games - 1 == target;
+        }
+    }
+
+}
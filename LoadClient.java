@@ -0,0 +1,163 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for GameServer: many concurrent clients, each playing AI games by firing at random
+public class LoadClient {
+
+    private static final int LATENCY_BUCKETS = 40; // Bucket i holds turns that took under 2^i microseconds
+
+    private final String host;
+    private final int port;
+    private final int gamesPerClient;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder shots = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLongArray latency = new AtomicLongArray(LATENCY_BUCKETS);
+
+    public LoadClient(String host, int port, int gamesPerClient) {
+        this.host = host;
+        this.port = port;
+        this.gamesPerClient = gamesPerClient;
+    }
+
+    public void run(int clients) throws InterruptedException {
+        ExecutorService executor = GameServer.newPerTaskExecutor("battleships-load");
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            long seed = i;
+            executor.execute(() -> {
+                try {
+                    playGames(new SplittableRandom(seed));
+                } catch (IOException | RuntimeException ex) {
+                    failures.increment();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+    }
+
+    private void playGames(SplittableRandom random) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1024);
+            OutputStream out = socket.getOutputStream();
+            int size = Integer.parseInt(expect(in, "HELLO").substring(6).trim());
+            int[] cells = new int[size * size];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = i;
+            }
+
+            for (int game = 0; game < gamesPerClient; game++) {
+                send(out, "NEW AI\nAUTO\nREADY\n");
+                for (int i = cells.length - 1; i > 0; i--) { // A fresh shot order each game
+                    int j = random.nextInt(i + 1);
+                    int swap = cells[i];
+                    cells[i] = cells[j];
+                    cells[j] = swap;
+                }
+                int next = 0;
+                long sent = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("TURN")) {
+                        if (sent != 0) {
+                            recordLatency(System.nanoTime() - sent);
+                        }
+                        int cell = cells[next++];
+                        sent = System.nanoTime();
+                        send(out, "FIRE " + cell / size + " " + cell % size + "\n");
+                        shots.increment();
+                    } else if (line.startsWith("GAMEOVER")) {
+                        recordLatency(System.nanoTime() - sent);
+                        games.increment();
+                        break;
+                    } else if (line.startsWith("ERR")) {
+                        throw new IOException("Server refused: " + line);
+                    }
+                }
+                if (line == null) {
+                    throw new IOException("Server closed the connection");
+                }
+            }
+            send(out, "QUIT\n");
+        }
+    }
+
+    private static String expect(BufferedReader in, String prefix) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        throw new IOException("Expected " + prefix + " from the server");
+    }
+
+    private static void send(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private void recordLatency(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        latency.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    // Upper bound of the bucket holding the given percentile, in microseconds
+    private long latencyPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            total += latency.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += latency.get(i);
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = "127.0.0.1";
+        int port = 7777;
+        int clients = 1000;
+        int gamesPerClient = 10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host": host = args[i + 1]; break;
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--games": gamesPerClient = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        LoadClient load = new LoadClient(host, port, gamesPerClient);
+        long start = System.nanoTime();
+        load.run(clients);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients, %d games, %d shots in %.2fs (%.0f games/sec, %.0f shots/sec), %d failed clients%n",
+                clients, load.games.sum(), load.shots.sum(), seconds, load.games.sum() / seconds,
+                load.shots.sum() / seconds, load.failures.sum());
+        System.out.printf("turn latency p50 < %dus  p90 < %dus  p99 < %dus%n",
+                load.latencyPercentile(50), load.latencyPercentile(90), load.latencyPercentile(99));
+    }
+
+}
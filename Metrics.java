@@ -0,0 +1,126 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.swing.*;
+import java.awt.GraphicsEnvironment;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide instrumentation. Switched on with -Dbattleships.metrics=true; ENABLED is a static final
+// so that the JIT folds every "if (Metrics.ENABLED)" away when it is off. Latencies are in nanoseconds.
+// start() publishes everything as MBeans under "battleships:" and, with -Dbattleships.metrics.dump=MILLIS,
+// prints a summary to stderr at that period.
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("battleships.metrics");
+
+    public static final LogLinearHistogram SHOT_RESOLUTION = new LogLinearHistogram();
+    public static final LogLinearHistogram AI_DECISION = new LogLinearHistogram();
+    public static final LogLinearHistogram VIEW_REFRESH = new LogLinearHistogram();
+    public static final LogLinearHistogram EDT_STALL = new LogLinearHistogram();
+    public static final LogLinearHistogram PLACEMENT_ATTEMPTS = new LogLinearHistogram(); // Per placeShips call
+
+    public static final LongAdder GAMES_STARTED = new LongAdder();
+    public static final LongAdder GAMES_FINISHED = new LongAdder();
+    public static final LongAdder GAMES_ABANDONED = new LongAdder();
+
+    private static final long EDT_PROBE_MILLIS = 100;
+
+    private static boolean started = false;
+
+    public interface GamesMXBean {
+        long getGamesStarted();
+        long getGamesFinished();
+        long getGamesAbandoned();
+    }
+
+    private Metrics() {
+    }
+
+    public static synchronized void start() {
+        if (!ENABLED || started) {
+            return;
+        }
+        started = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(SHOT_RESOLUTION, new ObjectName("battleships:type=Latency,name=ShotResolution"));
+            server.registerMBean(AI_DECISION, new ObjectName("battleships:type=Latency,name=AiDecision"));
+            server.registerMBean(VIEW_REFRESH, new ObjectName("battleships:type=Latency,name=ViewRefresh"));
+            server.registerMBean(EDT_STALL, new ObjectName("battleships:type=Latency,name=EdtStall"));
+            server.registerMBean(PLACEMENT_ATTEMPTS, new ObjectName("battleships:type=Counts,name=PlacementAttempts"));
+            server.registerMBean(new GamesMXBean() {
+                @Override
+                public long getGamesStarted() {
+                    return GAMES_STARTED.sum();
+                }
+
+                @Override
+                public long getGamesFinished() {
+                    return GAMES_FINISHED.sum();
+                }
+
+                @Override
+                public long getGamesAbandoned() {
+                    return GAMES_ABANDONED.sum();
+                }
+            }, new ObjectName("battleships:type=Counts,name=Games"));
+        } catch (JMException ex) {
+            System.err.println("Cannot register metrics MBeans: " + ex.getMessage());
+        }
+
+        long period = Long.getLong("battleships.metrics.dump", 0);
+        if (period > 0) {
+            daemon("battleships-metrics", () -> {
+                while (true) {
+                    Thread.sleep(period);
+                    System.err.print(dump());
+                }
+            });
+        }
+    }
+
+    // Measures how long a task posted to the EDT waits before it runs, for as long as the process lives
+    public static synchronized void watchEdt() {
+        if (!ENABLED || GraphicsEnvironment.isHeadless()) {
+            return;
+        }
+        daemon("battleships-edt-probe", () -> {
+            while (true) {
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> EDT_STALL.record(System.nanoTime() - posted));
+                Thread.sleep(EDT_PROBE_MILLIS);
+            }
+        });
+    }
+
+    private interface Loop {
+        void run() throws InterruptedException;
+    }
+
+    private static void daemon(String name, Loop loop) {
+        Thread thread = new Thread(() -> {
+            try {
+                loop.run();
+            } catch (InterruptedException ex) {
+                // Shutting down
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static String dump() {
+        return String.format("games started %d, finished %d, abandoned %d%n"
+                        + "  shot resolution    %s%n"
+                        + "  ai decision        %s%n"
+                        + "  view refresh       %s%n"
+                        + "  edt stall          %s%n"
+                        + "  placement attempts %s%n",
+                GAMES_STARTED.sum(), GAMES_FINISHED.sum(), GAMES_ABANDONED.sum(),
+                SHOT_RESOLUTION.describe(1e3, "us"), AI_DECISION.describe(1e3, "us"),
+                VIEW_REFRESH.describe(1e3, "us"), EDT_STALL.describe(1e3, "us"),
+                PLACEMENT_ATTEMPTS.describe(1, ""));
+    }
+
+}
@@ -0,0 +1,312 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+
+// Samples whole fleet layouts that agree with every hit, miss and sink seen so far and fires at the
+// cell the most sampled ships cover. Workers sample in parallel, each with its own split RNG, until
+// the per-move deadline or the sample cap, whichever comes first. On boards so crowded that almost
+// every sample is rejected, a cap on tries ends the move and hunt/target picks the shot instead.
+public class MonteCarloShooter implements Shooter {
+
+    private static final int HIT_ATTEMPTS = 24;   // Tries to cover one uncovered hit before a sample is dropped
+    private static final int FREE_ATTEMPTS = 64;  // Tries to place one remaining ship anywhere
+    private static final int CLOCK_EVERY = 16;    // Samples between deadline checks
+    private static final int TRIES_PER_SAMPLE = 100; // Tries allowed per accepted sample so far
+    private static final int TRIES_PER_LIMIT = 20;   // Tries allowed per sample wanted, over the whole move
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final int threads;
+    private final long budgetNanos;
+    private final int maxSamples;
+    private final Worker[] workers;
+    private final HuntTargetShooter fallback = new HuntTargetShooter(); // Used if no sample fits in the budget
+
+    private int size;
+    private BitLayer blocked;                  // Misses and the cells of sunk ships
+    private int[] afloat = new int[0];         // Lengths of ships not yet sunk
+    private int afloatCount;
+    private int[] unresolved = new int[16];    // Hit cells not yet explained by a sink
+    private int unresolvedCount;
+    private int[] newlyBlocked = new int[16];  // Blocked since the workers last synced
+    private int newlyBlockedCount;
+
+    public MonteCarloShooter() {
+        this(Runtime.getRuntime().availableProcessors(), 10, 5000);
+    }
+
+    // A budget of zero or less drops the deadline, which makes moves reproducible from the seed
+    public MonteCarloShooter(int threads, long budgetMillis, int maxSamples) {
+        this.threads = Math.max(1, threads);
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxSamples = maxSamples;
+        workers = new Worker[this.threads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    @Override
+    public void reset(int boardSize, Ship[] fleet) {
+        fallback.reset(boardSize, fleet);
+        if (blocked == null || size != boardSize) {
+            size = boardSize;
+            blocked = BitLayer.forCells(boardSize * boardSize);
+            for (Worker worker : workers) {
+                worker.resize();
+            }
+        } else {
+            blocked.clearAll();
+            for (Worker worker : workers) {
+                worker.occupied.clearAll();
+            }
+        }
+        afloat = new int[fleet.length];
+        afloatCount = 0;
+        for (Ship ship : fleet) {
+            afloat[afloatCount++] = ship.getLength();
+        }
+        unresolvedCount = 0;
+        newlyBlockedCount = 0;
+    }
+
+    @Override
+    public int chooseTarget(FogView target, RandomGenerator random) {
+        int[] scores = scoreCells(target, random);
+        return scores != null ? Shooter.bestUnshot(scores, target, random) : fallback.chooseTarget(target, random);
+    }
+
+    @Override
+    public void chooseTargets(FogView target, RandomGenerator random, int[] cells, int k) {
+        int[] scores = scoreCells(target, random);
+        if (scores != null) {
+            Shooter.bestUnshot(scores, target, random, cells, k);
+        } else {
+            fallback.chooseTargets(target, random, cells, k);
+        }
+    }
+
+    // Ship cells per board cell summed over every accepted sample, or null if none fit in the budget
+    // or the tries ran out
+    @Override
+    public int[] scoreCells(FogView target, RandomGenerator random) {
+        long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE; // No budget: sample cap only
+        int perWorker = (maxSamples + threads - 1) / threads;
+        for (Worker worker : workers) {
+            worker.prepare(new SplittableRandom(random.nextLong()), deadline, perWorker);
+        }
+        newlyBlockedCount = 0;
+        if (threads == 1) {
+            workers[0].compute();
+        } else {
+            POOL.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(workers);
+                }
+            });
+        }
+
+        int accepted = 0;
+        for (Worker worker : workers) {
+            if (worker.outOfTries) {
+                return null; // Too few samples fit to stand for the layouts still possible
+            }
+            accepted += worker.accepted;
+        }
+        if (accepted == 0) {
+            return null;
+        }
+        int[] scores = new int[size * size];
+        for (Worker worker : workers) {
+            for (int cell = 0; cell < scores.length; cell++) {
+                scores[cell] += worker.counts[cell];
+            }
+        }
+        return scores;
+    }
+
+    @Override
+    public void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk) {
+        fallback.shotResolved(row, col, result, sunk);
+        int cell = row * size + col;
+        switch (result) {
+            case MISS:
+                block(cell);
+                break;
+            case HIT:
+                if (unresolvedCount == unresolved.length) {
+                    unresolved = Arrays.copyOf(unresolved, unresolvedCount * 2);
+                }
+                unresolved[unresolvedCount++] = cell;
+                break;
+            case SUNK:
+                for (int[] position : sunk.getPositions()) {
+                    block(position[0] * size + position[1]);
+                }
+                int kept = 0;
+                for (int i = 0; i < unresolvedCount; i++) {
+                    if (!blocked.get(unresolved[i])) {
+                        unresolved[kept++] = unresolved[i];
+                    }
+                }
+                unresolvedCount = kept;
+                for (int i = 0; i < afloatCount; i++) {
+                    if (afloat[i] == sunk.getLength()) {
+                        afloat[i] = afloat[--afloatCount];
+                        break;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void block(int cell) {
+        if (blocked.get(cell)) {
+            return;
+        }
+        blocked.set(cell);
+        if (newlyBlockedCount == newlyBlocked.length) {
+            newlyBlocked = Arrays.copyOf(newlyBlocked, newlyBlockedCount * 2);
+        }
+        newlyBlocked[newlyBlockedCount++] = cell;
+    }
+
+    // One sampling thread's scratch state, kept between moves so a move allocates nothing
+    private class Worker extends RecursiveAction {
+
+        private BitLayer occupied;  // Blocked cells plus the ships of the sample being built
+        private int[] counts;       // Sampled ship cells per board cell, for this move
+        private int[] placed = new int[16];
+        private int placedCount;
+        private int[] pending = new int[0];
+        private int pendingCount;
+
+        private SplittableRandom random;
+        private long deadline;
+        private int limit;
+        private int accepted;
+        private boolean outOfTries;
+
+        void resize() {
+            occupied = BitLayer.forCells(size * size);
+            counts = new int[size * size];
+        }
+
+        void prepare(SplittableRandom random, long deadline, int limit) {
+            reinitialize();
+            this.random = random;
+            this.deadline = deadline;
+            this.limit = limit;
+            for (int i = 0; i < newlyBlockedCount; i++) {
+                occupied.set(newlyBlocked[i]);
+            }
+            Arrays.fill(counts, 0);
+            accepted = 0;
+            outOfTries = false;
+        }
+
+        // Gives up when hardly any sample fits, or when the move has used up its tries; either bounds a
+        // move that has no deadline
+        @Override
+        protected void compute() {
+            long maxTries = (long) limit * TRIES_PER_LIMIT;
+            for (long tries = 0; accepted < limit; tries++) {
+                if (tries >= (accepted + 1L) * TRIES_PER_SAMPLE || tries == maxTries) {
+                    outOfTries = true;
+                    break;
+                }
+                if (tries % CLOCK_EVERY == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                if (sample()) {
+                    accepted++;
+                    for (int i = 0; i < placedCount; i++) {
+                        counts[placed[i]]++;
+                    }
+                }
+                undo();
+            }
+        }
+
+        // Covers every unresolved hit first, then scatters the rest of the fleet
+        private boolean sample() {
+            if (pending.length < afloatCount) {
+                pending = new int[afloatCount];
+            }
+            System.arraycopy(afloat, 0, pending, 0, afloatCount);
+            pendingCount = afloatCount;
+
+            int start = unresolvedCount == 0 ? 0 : random.nextInt(unresolvedCount);
+            for (int i = 0; i < unresolvedCount; i++) {
+                int hit = unresolved[(start + i) % unresolvedCount];
+                if (occupied.get(hit)) {
+                    continue; // Already covered by a ship of this sample
+                }
+                if (!coverHit(hit)) {
+                    return false;
+                }
+            }
+            while (pendingCount > 0) {
+                int length = pending[--pendingCount];
+                boolean done = false;
+                for (int attempt = 0; attempt < FREE_ATTEMPTS && !done; attempt++) {
+                    char orientation = random.nextBoolean() ? 'H' : 'V';
+                    int cell = random.nextInt(size * size);
+                    done = tryPlace(cell / size, cell % size, length, orientation);
+                }
+                if (!done) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean coverHit(int hit) {
+            if (pendingCount == 0) {
+                return false;
+            }
+            for (int attempt = 0; attempt < HIT_ATTEMPTS; attempt++) {
+                int pick = random.nextInt(pendingCount);
+                int length = pending[pick];
+                char orientation = random.nextBoolean() ? 'H' : 'V';
+                int offset = random.nextInt(length);
+                int row = hit / size - (orientation == 'V' ? offset : 0);
+                int col = hit % size - (orientation == 'H' ? offset : 0);
+                if (tryPlace(row, col, length, orientation)) {
+                    pending[pick] = pending[--pendingCount];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean tryPlace(int row, int col, int length, char orientation) {
+            if (!BBoard.fits(occupied, size, row, col, length, orientation)) {
+                return false;
+            }
+            if (placedCount + length > placed.length) {
+                placed = Arrays.copyOf(placed, Math.max(placed.length * 2, placedCount + length));
+            }
+            int cell = row * size + col;
+            int step = orientation == 'H' ? 1 : size;
+            for (int i = 0; i < length; i++, cell += step) {
+                occupied.set(cell);
+                placed[placedCount++] = cell;
+            }
+            return true;
+        }
+
+        private void undo() {
+            for (int i = 0; i < placedCount; i++) {
+                occupied.clear(placed[i]);
+            }
+            placedCount = 0;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only log of games as fixed-width records: one NEW_GAME, the placements, START, then every shot
+public class MoveJournal implements Closeable {
+
+    public static final int MAGIC = 0x42534A52; // "BSJR"
+    public static final short VERSION = 1;
+
+    // Each record is type, side, a detail byte, a spare byte and two ints
+    public static final int RECORD_SIZE = 12;
+    public static final byte NEW_GAME = 1; // a = board size, b = ship count
+    public static final byte PLACE = 2;    // detail = orientation, a = ship index, b = start cell
+    public static final byte START = 3;    // side = who fires first
+    public static final byte SHOT = 4;     // detail = ShotResult ordinal, a = cell
+    public static final byte SEED = 5;     // a, b = high and low halves of the game's RNG seed
+    public static final byte SALVO = 6;    // a = number of SHOT records that follow and land as one turn
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int gameStart = 0; // Where the current game begins in the buffer
+
+    public MoveJournal(Path path, GameConfig config) throws IOException {
+        this(create(path, config), true);
+    }
+
+    // Several journals, one per engine, can append to one shared channel; each writes whole games at a time
+    public MoveJournal(FileChannel shared) {
+        this(shared, false);
+    }
+
+    private MoveJournal(FileChannel channel, boolean ownsChannel) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+    }
+
+    public static FileChannel create(Path path, GameConfig config) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(4 + 2 + config.encodedSize());
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        config.writeTo(header);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return channel;
+    }
+
+    public void recordNewGame(int boardSize, int shipCount) {
+        buffer.position(gameStart); // A game abandoned before endGame is dropped, so replay never sees it
+        // Flushing only between games keeps each game contiguous in a shared file
+        if (buffer.remaining() < BUFFER_SIZE / 4) {
+            flush();
+        }
+        append(NEW_GAME, 0, 0, boardSize, shipCount);
+    }
+
+    // Marks the game as complete, so the next flush writes it and the next game keeps it
+    public void endGame() {
+        gameStart = buffer.position();
+    }
+
+    public void recordSeed(long seed) {
+        append(SEED, 0, 0, (int) (seed >>> 32), (int) seed);
+    }
+
+    public void recordSalvo(int side, int shots) {
+        append(SALVO, side, 0, shots, 0);
+    }
+
+    public void recordPlacement(int side, int shipIndex, int startCell, char orientation) {
+        append(PLACE, side, orientation, shipIndex, startCell);
+    }
+
+    public void recordStart(int firstSide) {
+        append(START, firstSide, 0, 0, 0);
+    }
+
+    public void recordShot(int side, int cell, BEngine.ShotResult result) {
+        append(SHOT, side, result.ordinal(), cell, 0);
+    }
+
+    private void append(byte type, int side, int detail, int a, int b) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            grow(); // A single game outgrew the buffer, which only happens on very large boards
+        }
+        buffer.put(type).put((byte) side).put((byte) detail).put((byte) 0).putInt(a).putInt(b);
+    }
+
+    private void grow() {
+        ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    // Writes every completed game; the game in progress stays buffered
+    public void flush() {
+        int end = buffer.position();
+        buffer.flip();
+        buffer.limit(gameStart);
+        try {
+            synchronized (channel) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        buffer.limit(end);
+        buffer.compact();
+        gameStart = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        gameStart = buffer.position(); // The last game counts as complete
+        try {
+            flush();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            if (ownsChannel) {
+                channel.close();
+            }
+        }
+    }
+
+}
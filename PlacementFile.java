@@ -0,0 +1,128 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+// Text placement files: one "PLAYER|OPPONENT ShipName row col H|V" line per ship
+public class PlacementFile {
+
+    public interface ErrorSink {
+        // line is 0 for problems with the file as a whole, such as ships that were never placed
+        void error(int line, String message);
+    }
+
+    private final String[] tokens = new String[6]; // One spare slot to spot trailing tokens
+
+    // Streams the reader into model, clearing it first; every problem goes to errors and the count is returned
+    public int load(BufferedReader reader, BModel model, ErrorSink errors) throws IOException {
+        model.initialiseBoard();
+        resetFleet(model.getPlayerShips());
+        resetFleet(model.getOpponentShips());
+
+        int errorCount = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int count = tokenise(line);
+            if (count == 0) {
+                continue; // Blank lines are allowed
+            }
+            String message = placeLine(count, model);
+            if (message != null) {
+                errors.error(lineNumber, message);
+                errorCount++;
+            }
+        }
+
+        errorCount += reportUnplaced("PLAYER", model.getPlayerShips(), errors);
+        errorCount += reportUnplaced("OPPONENT", model.getOpponentShips(), errors);
+        return errorCount;
+    }
+
+    private String placeLine(int count, BModel model) {
+        if (count != 5) { // Expecting an extra identifier (PLAYER/OPPONENT)
+            return "Invalid format, expected: PLAYER/OPPONENT ShipName row col orientation";
+        }
+
+        String boardOwner = tokens[0].toUpperCase();
+        Ship[] targetShips;
+        BBoard targetBoard;
+        if (boardOwner.equals("PLAYER")) {
+            targetShips = model.getPlayerShips();
+            targetBoard = model.getPlayerGrid();
+        } else if (boardOwner.equals("OPPONENT")) {
+            targetShips = model.getOpponentShips();
+            targetBoard = model.getOpponentGrid();
+        } else {
+            return "Invalid board owner " + tokens[0] + ", expected PLAYER or OPPONENT";
+        }
+
+        int row;
+        int col;
+        try {
+            row = Integer.parseInt(tokens[2]);
+            col = Integer.parseInt(tokens[3]);
+        } catch (NumberFormatException ex) {
+            return "Row and column must be numbers: " + tokens[2] + " " + tokens[3];
+        }
+        char orientation = Character.toUpperCase(tokens[4].charAt(0)); // H, V, Horizontal and Vertical all work
+
+        String name = tokens[1];
+        Ship ship = null;
+        for (Ship candidate : targetShips) {
+            if (candidate.getName().equalsIgnoreCase(name)) {
+                ship = candidate;
+                break;
+            }
+        }
+        if (ship == null) {
+            return "Unknown ship name for " + boardOwner + ": " + name;
+        }
+        if (ship.isPlaced()) {
+            return boardOwner.toLowerCase() + " ship '" + name + "' is placed more than once";
+        }
+        if (!model.placeShip(targetBoard, ship, row, col, orientation)) {
+            return "Cannot place " + boardOwner.toLowerCase() + " ship '" + name + "' at " + row + "," + col
+                    + " (" + orientation + "), check for overlaps or out-of-bounds placement";
+        }
+        return null;
+    }
+
+    private static int reportUnplaced(String boardOwner, Ship[] ships, ErrorSink errors) {
+        int count = 0;
+        for (Ship ship : ships) {
+            if (!ship.isPlaced()) {
+                errors.error(0, boardOwner.toLowerCase() + " ship '" + ship.getName() + "' is not placed");
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void resetFleet(Ship[] ships) {
+        for (Ship ship : ships) {
+            ship.reset();
+        }
+    }
+
+    // Splits on whitespace without a regex; stops counting once there are more tokens than any valid line has
+    private int tokenise(String line) {
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while (i < length && count < tokens.length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            tokens[count++] = line.substring(start, i);
+        }
+        return count;
+    }
+
+}
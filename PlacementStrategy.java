@@ -0,0 +1,7 @@
+import java.util.random.RandomGenerator;
+
+public interface PlacementStrategy {
+
+    void placeShips(BBoard board, Ship[] ships, RandomGenerator random);
+
+}
@@ -0,0 +1,133 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PlacementTable {
+
+    private static final ConcurrentHashMap<Long, PlacementTable> TABLES = new ConcurrentHashMap<>();
+
+    // Tables grow with the square of the board, so bigger boards check placements cell by cell
+    public static final int MAX_BOARD_SIZE = 32;
+
+    private final int size;
+    private final int length;
+    private final int perLine;
+    private final int count;
+    private final int[] cells;       // count * length cell indices, one run per placement
+    private final int[][] covering;  // cell -> ids of placements that cover it
+    private final int[] coverage;    // cell -> number of placements that cover it
+    private final int wordsPerMask;
+    private final long[] masks;      // count * wordsPerMask, laid out like Bitboard words
+
+    public static boolean supports(int boardSize) {
+        return boardSize <= MAX_BOARD_SIZE;
+    }
+
+    public static PlacementTable forShip(int boardSize, int length) {
+        if (!supports(boardSize)) {
+            throw new IllegalArgumentException("No placement table for a " + boardSize + "x" + boardSize + " board");
+        }
+        long key = ((long) boardSize << 32) | length;
+        return TABLES.computeIfAbsent(key, k -> new PlacementTable(boardSize, length));
+    }
+
+    private PlacementTable(int size, int length) {
+        this.size = size;
+        this.length = length;
+
+        perLine = Math.max(0, size - length + 1);
+        int horizontal = size * perLine;
+        int vertical = (length == 1) ? 0 : horizontal; // A single cell has only one placement
+        count = horizontal + vertical;
+        cells = new int[count * length];
+        coverage = new int[size * size];
+
+        int p = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < perLine; col++, p++) {
+                for (int i = 0; i < length; i++) {
+                    cells[p * length + i] = row * size + col + i;
+                }
+            }
+        }
+        if (vertical > 0) {
+            for (int row = 0; row < perLine; row++) {
+                for (int col = 0; col < size; col++, p++) {
+                    for (int i = 0; i < length; i++) {
+                        cells[p * length + i] = (row + i) * size + col;
+                    }
+                }
+            }
+        }
+
+        wordsPerMask = (size * size + 63) >>> 6;
+        masks = new long[count * wordsPerMask];
+        for (int id = 0; id < count; id++) {
+            for (int i = 0; i < length; i++) {
+                int cell = cells[id * length + i];
+                masks[id * wordsPerMask + (cell >>> 6)] |= 1L << cell;
+            }
+        }
+
+        for (int cell : cells) {
+            coverage[cell]++;
+        }
+        covering = new int[size * size][];
+        for (int cell = 0; cell < covering.length; cell++) {
+            covering[cell] = new int[coverage[cell]];
+        }
+        int[] fill = new int[size * size];
+        for (int id = 0; id < count; id++) {
+            for (int i = 0; i < length; i++) {
+                int cell = cells[id * length + i];
+                covering[cell][fill[cell]++] = id;
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int indexOf(int startRow, int startCol, char orientation) {
+        if (orientation == 'V' && length > 1) {
+            return size * perLine + startRow * size + startCol;
+        }
+        return startRow * perLine + startCol;
+    }
+
+    public int getCell(int placement, int i) {
+        return cells[placement * length + i];
+    }
+
+    public int getStartCell(int placement) {
+        return cells[placement * length];
+    }
+
+    public char getOrientation(int placement) {
+        return (length > 1 && cells[placement * length + 1] != cells[placement * length] + 1) ? 'V' : 'H';
+    }
+
+    public long[] getMasks() {
+        return masks;
+    }
+
+    public int getMaskOffset(int placement) {
+        return placement * wordsPerMask;
+    }
+
+    public int[] getCovering(int cell) {
+        return covering[cell];
+    }
+
+    public int[] getCoverage() {
+        return coverage;
+    }
+
+}
@@ -0,0 +1,206 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+// Headless check of placement files across all cores; prints one JSON line per file
+public class PlacementValidator {
+
+    private static final int FILES_PER_TASK = 64;
+
+    private final GameConfig config;
+
+    public PlacementValidator(GameConfig config) {
+        this.config = config;
+    }
+
+    // One file's verdict, with its JSON line
+    public static class Report {
+
+        private final String json;
+        private final int errorCount;
+
+        Report(String json, int errorCount) {
+            this.json = json;
+            this.errorCount = errorCount;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public boolean isValid() {
+            return errorCount == 0;
+        }
+    }
+
+    // Reports come back in the same order as the files
+    public Report[] validate(List<Path> files, int threads) {
+        Report[] reports = new Report[files.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new FileRange(files, reports, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return reports;
+    }
+
+    private class FileRange extends RecursiveTask<Void> {
+
+        private final List<Path> files;
+        private final Report[] reports;
+        private final int from;
+        private final int to;
+
+        FileRange(List<Path> files, Report[] reports, int from, int to) {
+            this.files = files;
+            this.reports = reports;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from > FILES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                FileRange left = new FileRange(files, reports, from, mid);
+                left.fork();
+                new FileRange(files, reports, mid, to).compute();
+                left.join();
+                return null;
+            }
+            // Each leaf reuses one model and parser for all of its files
+            BModel model = new BModel(config);
+            PlacementFile parser = new PlacementFile();
+            for (int i = from; i < to; i++) {
+                reports[i] = validateFile(files.get(i), model, parser);
+            }
+            return null;
+        }
+    }
+
+    private static Report validateFile(Path file, BModel model, PlacementFile parser) {
+        StringBuilder errors = new StringBuilder();
+        int[] reported = {0}; // Errors already passed on when reading fails part way
+        int errorCount;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            errorCount = parser.load(reader, model, (line, message) -> {
+                reported[0]++;
+                appendError(errors, line, message);
+            });
+        } catch (IOException | RuntimeException ex) {
+            appendError(errors, 0, "Cannot read file: " + ex.getMessage());
+            errorCount = reported[0] + 1;
+        }
+        StringBuilder report = new StringBuilder(64 + errors.length());
+        report.append("{\"file\":");
+        appendString(report, file.toString());
+        report.append(",\"valid\":").append(errorCount == 0);
+        report.append(",\"errors\":[").append(errors).append("]}");
+        return new Report(report.toString(), errorCount);
+    }
+
+    private static void appendError(StringBuilder errors, int line, String message) {
+        if (errors.length() > 0) {
+            errors.append(',');
+        }
+        errors.append("{\"line\":").append(line).append(",\"message\":");
+        appendString(errors, message);
+        errors.append('}');
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static List<Path> collectFiles(List<String> roots) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String root : roots) {
+            Path path = Paths.get(root);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int boardSize = GameConfig.DEFAULT_BOARD_SIZE;
+        String fleet = null;
+        String output = null;
+        List<String> roots = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--size": boardSize = Integer.parseInt(args[++i]); break;
+                case "--fleet": fleet = args[++i]; break;
+                case "--out": output = args[++i]; break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.err.println("Unknown option: " + args[i]);
+                        System.exit(2);
+                    }
+                    roots.add(args[i]);
+            }
+        }
+        if (roots.isEmpty()) {
+            System.err.println("Usage: PlacementValidator [--size N] [--fleet spec] [--threads N] [--out report.jsonl] file-or-directory...");
+            System.exit(2);
+        }
+
+        List<Path> files = collectFiles(roots);
+        long start = System.nanoTime();
+        Report[] reports = new PlacementValidator(GameConfig.parse(boardSize, fleet)).validate(files, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int invalid = 0;
+        PrintStream out = output == null ? System.out
+                : new PrintStream(Files.newOutputStream(Paths.get(output)), false, StandardCharsets.UTF_8);
+        try {
+            for (Report report : reports) {
+                out.println(report.getJson());
+                if (!report.isValid()) {
+                    invalid++;
+                }
+            }
+        } finally {
+            out.flush();
+            if (out != System.out) {
+                out.close();
+            }
+        }
+        System.err.printf("%d files on %d threads in %.2fs, %d invalid%n", files.size(), threads, seconds, invalid);
+        System.exit(invalid == 0 ? 0 : 1);
+    }
+
+}
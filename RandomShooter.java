@@ -0,0 +1,40 @@
+import java.util.random.RandomGenerator;
+
+public class RandomShooter implements Shooter {
+
+    private static final int RANDOM_PROBES = 32;
+
+    @Override
+    public void reset(int boardSize, Ship[] fleet) {
+    }
+
+    @Override
+    public int chooseTarget(FogView target, RandomGenerator random) {
+        return randomUnshotCell(target, random);
+    }
+
+    // A few random probes, then a scan from a random start so late-game picks stay bounded on big boards
+    public static int randomUnshotCell(FogView target, RandomGenerator random) {
+        int size = target.getSize();
+        int cells = size * size;
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            int cell = random.nextInt(cells);
+            if (!target.isShot(cell / size, cell % size)) {
+                return cell;
+            }
+        }
+        int start = random.nextInt(cells);
+        for (int i = 0; i < cells; i++) {
+            int cell = (start + i) % cells;
+            if (!target.isShot(cell / size, cell % size)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk) {
+    }
+
+}
@@ -0,0 +1,445 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Headless round-trip and equivalence checks for the binary formats and the incremental code paths.
+// `mvn test` runs them; the exit status is 1 if any check fails.
+public class SelfCheck {
+
+    private final int games;
+    private final long seed;
+    private final Path dir;
+    private int checks = 0;
+    private int failures = 0;
+
+    public SelfCheck(int games, long seed, Path dir) {
+        this.games = games;
+        this.seed = seed;
+        this.dir = dir;
+    }
+
+    private void check(boolean ok, String what) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.err.println("FAIL: " + what);
+        }
+    }
+
+    // Games stopped at every stage, from placement to game over, on a tabled and an untabled board
+    private List<GameConfig> configs() {
+        return List.of(GameConfig.classic(), GameConfig.parse(40, "Carrier:5*4,Cruiser:3*6,Patrol:2*10"));
+    }
+
+    private BEngine playedGame(GameConfig config, long gameSeed, int shots) {
+        BEngine engine = new BEngine(new BModel(config));
+        play(engine, gameSeed, shots);
+        return engine;
+    }
+
+    private static void play(BEngine engine, long gameSeed, int shots) {
+        engine.setRandom(new SplittableRandom(gameSeed));
+        engine.newGame();
+        engine.placeShipsRandomly(BEngine.PLAYER);
+        engine.placeShipsRandomly(BEngine.OPPONENT);
+        engine.startBattle((int) (gameSeed & 1));
+        for (int i = 0; i < shots && !engine.isGameOver(); i++) {
+            engine.fireAuto(engine.getPhase() == BEngine.Phase.PLAYER_TURN ? BEngine.PLAYER : BEngine.OPPONENT);
+        }
+    }
+
+    // Counters, both boards with their ships, and the hits each ship has taken
+    private static String state(BEngine engine) {
+        StringBuilder out = new StringBuilder();
+        out.append(engine.getPhase()).append(' ').append(engine.getWinner()).append(' ')
+                .append(engine.getTries(BEngine.PLAYER)).append(' ').append(engine.getTries(BEngine.OPPONENT));
+        for (int side = 0; side < 2; side++) {
+            for (char[] row : engine.getBoard(side).toCharArray(false)) {
+                out.append('\n').append(row);
+            }
+            for (Ship ship : engine.getShips(side)) {
+                out.append(' ').append(ship.getHits());
+            }
+        }
+        return out.toString();
+    }
+
+    // Plays the game out on a seeded generator; equal shot lists mean the shooters' state matched too
+    private static String finish(BEngine engine, long finishSeed) {
+        engine.setRandom(new SplittableRandom(finishSeed));
+        StringBuilder shots = new StringBuilder();
+        while (engine.getPhase() == BEngine.Phase.PLAYER_TURN || engine.getPhase() == BEngine.Phase.OPPONENT_TURN) {
+            int side = engine.getPhase() == BEngine.Phase.PLAYER_TURN ? BEngine.PLAYER : BEngine.OPPONENT;
+            BEngine.ShotResult result = engine.fireAuto(side);
+            shots.append(side).append(':').append(engine.getLastRow()).append(',').append(engine.getLastCol())
+                    .append(result.name().charAt(0)).append(' ');
+        }
+        return shots.append(engine.getWinner()).toString();
+    }
+
+    public void snapshots() throws IOException {
+        for (GameConfig config : configs()) {
+            int cells = config.getBoardSize() * config.getBoardSize();
+            Path single = dir.resolve("game.bsnp");
+            Path archive = dir.resolve("games.bsar");
+            List<String> states = new ArrayList<>();
+            List<String> endings = new ArrayList<>();
+            try (SnapshotArchive.Writer writer = new SnapshotArchive.Writer(archive)) {
+                for (int game = 0; game < games; game++) {
+                    long gameSeed = Tournament.gameSeed(seed, game);
+                    int shots = (int) Math.floorMod(gameSeed, 2L * cells); // Some games end before the snapshot
+                    BEngine engine = playedGame(config, gameSeed, shots);
+                    writer.append(engine);
+                    states.add(state(engine));
+
+                    GameSnapshot.save(engine, single);
+                    BEngine loaded = GameSnapshot.load(single);
+                    check(state(loaded).equals(states.get(game)), "snapshot of game " + game + " on " + config.getBoardSize() + "x" + config.getBoardSize() + " restores its state");
+                    endings.add(finish(engine, gameSeed + 1));
+                    check(finish(loaded, gameSeed + 1).equals(endings.get(game)), "snapshot of game " + game + " plays out like the original");
+                }
+            }
+            int[] game = {0};
+            int count = SnapshotArchive.forEach(archive, engine -> {
+                check(state(engine).equals(states.get(game[0])), "archived game " + game[0] + " restores its state");
+                check(finish(engine, Tournament.gameSeed(seed, game[0]) + 1).equals(endings.get(game[0])), "archived game " + game[0] + " plays out like the original");
+                game[0]++;
+            });
+            check(count == games, "archive holds " + games + " games, read " + count);
+        }
+        corruptMiss();
+    }
+
+    // A miss recorded on a ship cell must be rejected, not turned into a hit the ship never took
+    private void corruptMiss() {
+        GameConfig config = GameConfig.classic();
+        BEngine engine = playedGame(config, seed, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.sizeOf(engine));
+        GameSnapshot.write(engine, buffer);
+        int hitsAt = 4 + 2 + config.encodedSize() + 1 + 1 + 4 + 4 + config.getShipCount() * 5;
+        int missesAt = hitsAt + 4 + 8 * buffer.getInt(hitsAt);
+        int[] position = engine.getShips(BEngine.PLAYER)[0].getPositions()[0];
+        int cell = position[0] * config.getBoardSize() + position[1];
+        int word = missesAt + 8 * (cell >>> 6);
+        buffer.putLong(word, buffer.getLong(word) | 1L << (cell & 63));
+        buffer.flip();
+        boolean rejected = false;
+        try {
+            GameSnapshot.read(buffer, null);
+        } catch (IllegalArgumentException ex) {
+            rejected = true;
+        }
+        check(rejected, "snapshot with a miss on a ship cell is rejected");
+    }
+
+    // Every game is journaled, then rebuilt by replay: all games to the end, and every tenth to where it was cut.
+    // An abandoned game goes first and must leave no trace.
+    public void journals() throws IOException {
+        for (GameConfig config : configs()) {
+            Path path = dir.resolve("games.bsj");
+            int cells = config.getBoardSize() * config.getBoardSize();
+            List<String> cutStates = new ArrayList<>();
+            List<String> endStates = new ArrayList<>();
+            int[] cuts = new int[games];
+            try (MoveJournal journal = new MoveJournal(path, config)) {
+                BEngine engine = new BEngine(new BModel(config));
+                engine.setJournal(journal);
+                play(engine, seed, 5); // Abandoned, so the journal must drop it when the next game starts
+                for (int game = 0; game < games; game++) {
+                    long gameSeed = Tournament.gameSeed(seed, game);
+                    cuts[game] = (int) Math.floorMod(gameSeed, (long) cells);
+                    play(engine, gameSeed, cuts[game]);
+                    cutStates.add(state(engine));
+                    finish(engine, gameSeed + 1);
+                    endStates.add(state(engine));
+                }
+            }
+            JournalReplay replay = new JournalReplay(path);
+            check(replay.getConfig().equals(config), "journal header holds the config");
+            int[] game = {0};
+            long count = replay.forEachGame(engine -> {
+                check(state(engine).equals(endStates.get(game[0])), "journaled game " + game[0] + " replays to its final state");
+                game[0]++;
+            });
+            check(count == games, "journal holds " + games + " games, replayed " + count);
+            for (int g = 0; g < games; g += 10) {
+                check(state(replay.replay(g, cuts[g])).equals(cutStates.get(g)), "journaled game " + g + " replays to shot " + cuts[g]);
+            }
+        }
+    }
+
+    // Games are parked in slots, a third of the slots are freed and reused for new games, then every game is
+    // inflated and compared with its original, re-synced the way inflating re-syncs the shooters. The
+    // 200x200 board needs four-byte placements; its games are only compared, not played out.
+    public void store() {
+        List<GameConfig> configs = new ArrayList<>(configs());
+        configs.add(GameConfig.parse(200, "Carrier:5*2,Patrol:2*3"));
+        for (GameConfig config : configs) {
+            boolean playOut = config.getBoardSize() <= 40;
+            int count = playOut ? games : Math.max(1, games / 20);
+            int cells = config.getBoardSize() * config.getBoardSize();
+            GameStore store = new GameStore(config);
+            int[] slots = new int[count];
+            String[] states = new String[count];
+            String[] endings = new String[count];
+            long[] seeds = new long[count];
+            for (int round = 0; round < 2; round++) {
+                for (int game = 0; game < count; game++) {
+                    if (round == 1 && game % 3 != 0) {
+                        continue;
+                    }
+                    if (round == 0) {
+                        slots[game] = store.allocate();
+                    } else {
+                        store.free(slots[game]);
+                        slots[game] = store.allocate();
+                    }
+                    seeds[game] = Tournament.gameSeed(seed, round * count + game);
+                    BEngine engine = new BEngine(new BModel(config));
+                    if (game % 7 == 0) { // Stopped while placing: the opponent's fleet is not down yet
+                        engine.setRandom(new SplittableRandom(seeds[game]));
+                        engine.newGame();
+                        engine.placeShipsRandomly(BEngine.PLAYER);
+                    } else {
+                        play(engine, seeds[game], (int) Math.floorMod(seeds[game], playOut ? 2L * cells : 2000L));
+                    }
+                    store.write(slots[game], engine);
+                    states[game] = state(engine);
+                    engine.restore(engine.getPhase(), engine.getWinner(), engine.getTries(BEngine.PLAYER), engine.getTries(BEngine.OPPONENT));
+                    endings[game] = playOut ? finish(engine, seeds[game] + 1) : null;
+                }
+            }
+            check(store.size() == count, "store holds " + count + " games after reuse, has " + store.size());
+            for (int game = 0; game < count; game++) {
+                String where = "stored game " + game + " on " + config.getBoardSize() + "x" + config.getBoardSize();
+                BEngine engine = store.inflate(slots[game]);
+                check(store.getPhase(slots[game]) == engine.getPhase(), where + " reports its phase");
+                check(state(engine).equals(states[game]), where + " inflates to its state");
+                if (playOut) {
+                    check(finish(engine, seeds[game] + 1).equals(endings[game]), where + " plays out like the original");
+                }
+                store.park(slots[game], engine);
+            }
+        }
+    }
+
+    // After every shot of every game, each side's incremental density map must equal one rebuilt from the board
+    public void density() {
+        for (GameConfig config : List.of(GameConfig.classic(), GameConfig.parse(12, "A:5,B:4*2,C:3*3,D:2*2,E:1*2"))) {
+            BEngine engine = new BEngine(new BModel(config));
+            int mismatches = 0;
+            for (int game = 0; game < games; game++) {
+                play(engine, Tournament.gameSeed(seed, game), 0);
+                while (!engine.isGameOver()) {
+                    int side = engine.getPhase() == BEngine.Phase.PLAYER_TURN ? BEngine.PLAYER : BEngine.OPPONENT;
+                    engine.fireAuto(side);
+                    for (int s = 0; s < 2; s++) {
+                        int[] incremental = engine.getShooter(s).scoreCells(engine.getBoard(1 - s).getFogView(), engine.getRandom());
+                        if (!Arrays.equals(incremental, recomputedDensity(engine, s))) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+            check(engine.getShooter(BEngine.PLAYER) instanceof DensityShooter, "density shooter plays by default on " + config.getBoardSize() + "x" + config.getBoardSize());
+            check(mismatches == 0, mismatches + " incremental density maps differ from a full recompute on " + config.getBoardSize() + "x" + config.getBoardSize());
+        }
+    }
+
+    // Salvo games with K shots a turn and with one per ship afloat. Half the games let the shooters pick; the
+    // other half fire hand-built salvos aimed at the ships, with repeats, so that one salvo often hits a ship
+    // twice or sinks several. Every salvo's results are checked against the board, and every game is
+    // journaled and replayed.
+    public void salvo() throws IOException {
+        GameConfig config = GameConfig.classic();
+        int size = config.getBoardSize();
+        for (boolean perShip : new boolean[] {false, true}) {
+            String rules = perShip ? "one shot per ship" : "3-shot";
+            Path path = dir.resolve("salvo.bsj");
+            List<String> endStates = new ArrayList<>();
+            int wrongResults = 0;
+            int wrongSinks = 0;
+            int mismatches = 0;
+            try (MoveJournal journal = new MoveJournal(path, config)) {
+                BEngine engine = new BEngine(new BModel(config));
+                engine.setJournal(journal);
+                engine.setSalvo(3, perShip);
+                for (int game = 0; game < games; game++) {
+                    long gameSeed = Tournament.gameSeed(seed, game);
+                    SplittableRandom aim = new SplittableRandom(gameSeed + 1);
+                    play(engine, gameSeed, 0);
+                    while (!engine.isGameOver()) {
+                        int side = engine.getPhase() == BEngine.Phase.PLAYER_TURN ? BEngine.PLAYER : BEngine.OPPONENT;
+                        BBoard target = engine.getBoard(1 - side);
+                        Ship[] fleet = engine.getShips(1 - side);
+                        boolean[] shot = new boolean[size * size];
+                        boolean[] sunk = new boolean[fleet.length];
+                        for (int cell = 0; cell < shot.length; cell++) {
+                            shot[cell] = target.isShot(cell / size, cell % size);
+                        }
+                        for (int s = 0; s < fleet.length; s++) {
+                            sunk[s] = fleet[s].isSunk();
+                        }
+
+                        if (game % 2 == 0) {
+                            engine.fireSalvoAuto(side);
+                        } else {
+                            int[] cells = new int[engine.getSalvoSize(side)];
+                            for (int i = 0; i < cells.length; i++) {
+                                Ship ship = fleet[aim.nextInt(fleet.length)];
+                                int[] position = ship.getPositions()[aim.nextInt(ship.getLength())];
+                                cells[i] = aim.nextBoolean() ? position[0] * size + position[1] : aim.nextInt(shot.length);
+                            }
+                            engine.fireSalvo(side, cells, cells.length);
+                            engine.observeSalvo(engine.getShooter(side));
+                        }
+
+                        // The last shot of the salvo to hit a newly sunk ship, and only that shot, reports it
+                        int[] lastHit = new int[fleet.length];
+                        Arrays.fill(lastHit, -1);
+                        for (int i = 0; i < engine.getSalvoCount(); i++) {
+                            int cell = engine.getSalvoCell(i);
+                            Ship ship = target.shipAt(cell / size, cell % size);
+                            BEngine.ShotResult expected;
+                            if (shot[cell]) {
+                                expected = BEngine.ShotResult.ALREADY_GUESSED;
+                            } else if (ship == null) {
+                                expected = BEngine.ShotResult.MISS;
+                            } else {
+                                expected = BEngine.ShotResult.HIT;
+                                lastHit[Arrays.asList(fleet).indexOf(ship)] = i;
+                            }
+                            shot[cell] = true;
+                            BEngine.ShotResult result = engine.getSalvoResult(i);
+                            if (result == BEngine.ShotResult.SUNK ? expected != BEngine.ShotResult.HIT : result != expected) {
+                                wrongResults++;
+                            }
+                        }
+                        for (int i = 0; i < engine.getSalvoCount(); i++) {
+                            int credited = -1;
+                            for (int s = 0; s < fleet.length; s++) {
+                                if (!sunk[s] && fleet[s].isSunk() && lastHit[s] == i) {
+                                    credited = s;
+                                }
+                            }
+                            boolean reported = engine.getSalvoResult(i) == BEngine.ShotResult.SUNK;
+                            if (reported != (credited >= 0) || engine.getSalvoSunk(i) != (credited >= 0 ? fleet[credited] : null)) {
+                                wrongSinks++;
+                            }
+                        }
+
+                        for (int s = 0; s < 2; s++) {
+                            int[] incremental = engine.getShooter(s).scoreCells(engine.getBoard(1 - s).getFogView(), engine.getRandom());
+                            if (!Arrays.equals(incremental, recomputedDensity(engine, s))) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                    endStates.add(state(engine));
+                }
+            }
+            check(wrongResults == 0, wrongResults + " " + rules + " salvo shots report the wrong hit, miss or repeat");
+            check(wrongSinks == 0, wrongSinks + " " + rules + " salvo shots credit a sink wrongly");
+            check(mismatches == 0, mismatches + " density maps after " + rules + " salvos differ from a full recompute");
+
+            int[] game = {0};
+            long count = new JournalReplay(path).forEachGame(engine -> {
+                check(state(engine).equals(endStates.get(game[0])), "journaled " + rules + " salvo game " + game[0] + " replays to its final state");
+                game[0]++;
+            });
+            check(count == games, "salvo journal holds " + games + " games, replayed " + count);
+        }
+    }
+
+    // Placements of every afloat ship that avoid misses and sunk ships, weighted by how many ships share the
+    // length; while any hit is unexplained only placements through such a hit count
+    private static int[] recomputedDensity(BEngine engine, int side) {
+        BBoard target = engine.getBoard(1 - side);
+        int size = target.getSize();
+        boolean[] blocked = new boolean[size * size];
+        int[] afloat = new int[size + 1];
+        for (Ship ship : engine.getShips(1 - side)) {
+            if (ship.isSunk()) {
+                for (int[] position : ship.getPositions()) {
+                    blocked[position[0] * size + position[1]] = true;
+                }
+            } else {
+                afloat[ship.getLength()]++;
+            }
+        }
+        boolean[] unresolved = new boolean[size * size];
+        boolean targeting = false;
+        for (int cell = 0; cell < blocked.length; cell++) {
+            char mark = target.cellAt(cell / size, cell % size);
+            if (mark == 'O') {
+                blocked[cell] = true;
+            } else if (mark == 'X' && !blocked[cell]) {
+                unresolved[cell] = true;
+                targeting = true;
+            }
+        }
+        int[] scores = new int[size * size];
+        for (int length = 1; length <= size; length++) {
+            if (afloat[length] == 0) {
+                continue;
+            }
+            for (int step : length == 1 ? new int[] {1} : new int[] {1, size}) {
+                for (int row = 0; row + (step == size ? length : 1) <= size; row++) {
+                    for (int col = 0; col + (step == 1 ? length : 1) <= size; col++) {
+                        int start = row * size + col;
+                        boolean open = true;
+                        boolean throughHit = false;
+                        for (int i = 0, cell = start; i < length; i++, cell += step) {
+                            open &= !blocked[cell];
+                            throughHit |= unresolved[cell];
+                        }
+                        if (open && (throughHit || !targeting)) {
+                            for (int i = 0, cell = start; i < length; i++, cell += step) {
+                                scores[cell] += afloat[length];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 200;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        Path dir = Files.createTempDirectory("battleships-check");
+        SelfCheck check = new SelfCheck(games, seed, dir);
+        try {
+            check.snapshots();
+            check.journals();
+            check.density();
+            check.store();
+            check.salvo();
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+        System.out.printf("%d checks over %d games per check, %d failed%n", check.checks, games, check.failures);
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,232 @@
+// Headless turn logic for one networked game, the server's counterpart of BController.
+// Seats are remote players; a null seat is played by the engine's shooter. Commands from both seats
+// are serialised on the session, and the engine's events are turned into protocol lines for them.
+// Between commands the game is parked in a GameStore slot, so an idle game holds no engine.
+public class ServerSession implements GameListener {
+
+    public interface Seat {
+        void send(String line);
+        void flush();
+    }
+
+    private final long id;
+    private final GameStore store;
+    private final GameConfig config;
+    private final int slot;
+    private BEngine engine; // Only set while a command is being processed
+    private final Seat[] seats;
+    private final boolean[] ready = new boolean[2];
+    private boolean closed = false;
+
+    public ServerSession(long id, GameStore store, Seat player, Seat opponent) {
+        this.id = id;
+        this.store = store;
+        this.config = store.getConfig();
+        this.seats = new Seat[] {player, opponent};
+        slot = store.allocate();
+        engine = store.borrow();
+        engine.getModel().addGameListener(this);
+        engine.newGame();
+        for (int side = 0; side < 2; side++) {
+            if (seats[side] == null) {
+                engine.placeShipsRandomly(side);
+                ready[side] = true;
+            }
+        }
+        park();
+    }
+
+    private void inflate() {
+        engine = store.inflate(slot);
+        engine.getModel().addGameListener(this);
+    }
+
+    private void park() {
+        engine.getModel().removeGameListener(this);
+        store.park(slot, engine);
+        engine = null;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public synchronized boolean isFinished() {
+        return closed || store.getPhase(slot) == BEngine.Phase.GAME_OVER;
+    }
+
+    public synchronized String place(int side, String name, int row, int col, char orientation) {
+        if (closed) {
+            return "ERR game closed";
+        }
+        inflate();
+        try {
+            if (engine.getPhase() != BEngine.Phase.SHIP_PLACEMENT || ready[side]) {
+                return "ERR placement is over";
+            }
+            for (Ship ship : engine.getShips(side)) {
+                if (ship.getName().equalsIgnoreCase(name)) {
+                    if (ship.isPlaced()) {
+                        return "ERR " + ship.getName() + " is already placed";
+                    }
+                    return engine.placeShip(side, ship, row, col, orientation) ? "OK" : "ERR invalid placement";
+                }
+            }
+            return "ERR unknown ship " + name;
+        } finally {
+            park();
+        }
+    }
+
+    public synchronized String autoPlace(int side) {
+        if (closed) {
+            return "ERR game closed";
+        }
+        inflate();
+        try {
+            if (engine.getPhase() != BEngine.Phase.SHIP_PLACEMENT || ready[side]) {
+                return "ERR placement is over";
+            }
+            engine.getBoard(side).clear();
+            for (Ship ship : engine.getShips(side)) {
+                ship.reset();
+            }
+            engine.placeShipsRandomly(side);
+            return "OK";
+        } finally {
+            park();
+        }
+    }
+
+    public synchronized String ready(int side) {
+        if (closed) {
+            return "ERR game closed";
+        }
+        inflate();
+        try {
+            if (engine.getPhase() != BEngine.Phase.SHIP_PLACEMENT || ready[side]) {
+                return "ERR already ready";
+            }
+            for (Ship ship : engine.getShips(side)) {
+                if (!ship.isPlaced()) {
+                    return "ERR " + ship.getName() + " is not placed";
+                }
+            }
+            ready[side] = true;
+            if (ready[BEngine.PLAYER] && ready[BEngine.OPPONENT]) {
+                engine.startBattle(BEngine.PLAYER);
+                sendBoth("START");
+                promptTurn();
+            }
+            return "OK";
+        } finally {
+            park();
+        }
+    }
+
+    public synchronized String fire(int side, int row, int col) {
+        if (closed) {
+            return "ERR game closed";
+        }
+        inflate();
+        try {
+            if (engine.getPhase() != (side == BEngine.PLAYER ? BEngine.Phase.PLAYER_TURN : BEngine.Phase.OPPONENT_TURN)) {
+                return "ERR not your turn";
+            }
+            int size = engine.getBoard(side).getSize();
+            if (row < 0 || row >= size || col < 0 || col >= size) {
+                return "ERR shot outside the board";
+            }
+            engine.fire(side, row, col);
+            // The built-in AI answers straight away
+            int other = 1 - side;
+            if (seats[other] == null && !engine.isGameOver() && engine.getPhase() != turnPhase(side)) {
+                engine.fireAuto(other);
+            }
+            promptTurn();
+            return "OK";
+        } finally {
+            park();
+        }
+    }
+
+    // True for the first seat to leave, which closes the game
+    public synchronized boolean leave(int side) {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        boolean over = store.getPhase(slot) == BEngine.Phase.GAME_OVER;
+        if (Metrics.ENABLED && !over) {
+            Metrics.GAMES_ABANDONED.increment();
+        }
+        store.free(slot);
+        Seat other = seats[1 - side];
+        if (other != null && !over) {
+            other.send("OPPONENT_LEFT");
+            other.flush();
+        }
+        return true;
+    }
+
+    private void promptTurn() {
+        if (engine.isGameOver()) {
+            return;
+        }
+        Seat seat = seats[engine.getPhase() == BEngine.Phase.PLAYER_TURN ? BEngine.PLAYER : BEngine.OPPONENT];
+        if (seat != null) {
+            seat.send("TURN");
+            seat.flush();
+        }
+    }
+
+    private static BEngine.Phase turnPhase(int side) {
+        return side == BEngine.PLAYER ? BEngine.Phase.PLAYER_TURN : BEngine.Phase.OPPONENT_TURN;
+    }
+
+    private void send(int side, String line) {
+        if (seats[side] != null) {
+            seats[side].send(line);
+        }
+    }
+
+    private void sendBoth(String line) {
+        send(BEngine.PLAYER, line);
+        send(BEngine.OPPONENT, line);
+    }
+
+    @Override
+    public void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+        send(owner, "PLACED " + config.getShipName(shipIndex) + " " + row + " " + col + " " + orientation);
+    }
+
+    @Override
+    public void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+        String outcome = result == BEngine.ShotResult.ALREADY_GUESSED ? "REPEAT" : result.name();
+        send(shooter, "SHOT " + row + " " + col + " " + outcome);
+        send(1 - shooter, "INCOMING " + row + " " + col + " " + outcome);
+    }
+
+    @Override
+    public void shipSunk(int owner, int shipIndex) {
+        String name = config.getShipName(shipIndex);
+        send(owner, "LOST " + name);
+        send(1 - owner, "SUNK " + name);
+    }
+
+    @Override
+    public void gameOver(int winner, int tries) {
+        send(winner, "GAMEOVER WIN " + tries);
+        send(1 - winner, "GAMEOVER LOSE " + tries);
+    }
+
+    @Override
+    public void turnEnded() {
+        for (Seat seat : seats) {
+            if (seat != null) {
+                seat.flush();
+            }
+        }
+    }
+
+}
@@ -25,6 +25,10 @@ public class Ship {
         return false;
     }
 
+    public int[][] getPositions() {
+        return positions;
+    }
+
     public String getName() {
         return name;
     }
@@ -33,6 +37,25 @@ public class Ship {
         return length;
     }
 
+    public void reset() {
+        hits = 0;
+        positions = null;
+        positionCount = 0;
+    }
+
+    public boolean isPlaced() {
+        return positions != null;
+    }
+
+    // 'V' when the hull runs down the rows; single-cell ships count as horizontal
+    public char getOrientation() {
+        return positionCount > 1 && positions[1][0] != positions[0][0] ? 'V' : 'H';
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
     public void registerHit() {
         hits++;
     }
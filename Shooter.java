@@ -0,0 +1,103 @@
+import java.nio.ByteBuffer;
+import java.util.random.RandomGenerator;
+
+public interface Shooter {
+
+    void reset(int boardSize, Ship[] fleet);
+    int chooseTarget(FogView target, RandomGenerator random);
+    void shotResolved(int row, int col, BEngine.ShotResult result, Ship sunk);
+
+    // Per-cell scores whose best unshot cell is the next target, for shooters whose choices can be cached.
+    // Null when the shooter has no such map. The array must not be kept or changed by the shooter afterwards.
+    default int[] scoreCells(FogView target, RandomGenerator random) {
+        return null;
+    }
+
+    // Picks k distinct unshot cells for one salvo into cells; the caller makes sure k cells are left.
+    // A score map's top k is the joint choice that maximises expected hits, since expected hits add up
+    // over cells; without one, the usual target leads and random unshot cells fill the salvo.
+    default void chooseTargets(FogView target, RandomGenerator random, int[] cells, int k) {
+        int[] scores = scoreCells(target, random);
+        if (scores != null) {
+            bestUnshot(scores, target, random, cells, k);
+            return;
+        }
+        cells[0] = chooseTarget(target, random);
+        fillRandom(target, random, cells, 1, k);
+    }
+
+    // State that cannot be rebuilt by replaying the shots seen so far, saved with game snapshots
+    default int stateSize() {
+        return 0;
+    }
+
+    default void writeState(ByteBuffer out) {
+    }
+
+    default void readState(ByteBuffer in) {
+    }
+
+    // The k best unshot cells, best first; ties are broken at random
+    static void bestUnshot(int[] scores, FogView target, RandomGenerator random, int[] cells, int k) {
+        int size = target.getSize();
+        long[] keys = new long[k]; // Score in the high bits, a tie-breaker in the low ones
+        long salt = random.nextLong(); // Hashed with the cell, a fresh random order of the cells per call
+        int found = 0;
+        for (int cell = 0; cell < scores.length; cell++) {
+            if (target.isShot(cell / size, cell % size)) {
+                continue;
+            }
+            long key = (long) scores[cell] << 31 | ((cell ^ salt) * 0x9E3779B97F4A7C15L) >>> 33;
+            if (found == k && key <= keys[k - 1]) {
+                continue;
+            }
+            int at = found < k ? found++ : k - 1;
+            while (at > 0 && keys[at - 1] < key) { // Insertion into the short sorted list
+                keys[at] = keys[at - 1];
+                cells[at] = cells[at - 1];
+                at--;
+            }
+            keys[at] = key;
+            cells[at] = cell;
+        }
+    }
+
+    // Fills cells[from..k) with random unshot cells not already in cells[0..from)
+    static void fillRandom(FogView target, RandomGenerator random, int[] cells, int from, int k) {
+        int size = target.getSize();
+        for (int i = from; i < k; i++) {
+            int cell;
+            boolean taken;
+            do {
+                cell = random.nextInt(size * size);
+                taken = target.isShot(cell / size, cell % size);
+                for (int j = 0; j < i && !taken; j++) {
+                    taken = cells[j] == cell;
+                }
+            } while (taken);
+            cells[i] = cell;
+        }
+    }
+
+    static int bestUnshot(int[] scores, FogView target, RandomGenerator random) {
+        int size = target.getSize();
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int cell = 0; cell < scores.length; cell++) {
+            if (target.isShot(cell / size, cell % size)) {
+                continue;
+            }
+            int score = scores[cell];
+            if (score > bestScore) {
+                best = cell;
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) { // Uniform among equal cells
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,224 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-cell statistics over the shot stream of any number of concurrently running games. Each engine gets
+// its own Recorder listener, which keeps only the current game's turn counters and ship starts; every
+// shot goes straight into shared LongAdders, so nothing is buffered per game and nothing is allocated
+// per shot. Counters are per side: shots and hits by that side's shooter, how often a cell was the
+// side's first hit of a game, and how many turns ships of that side covering the cell stayed afloat.
+public class ShotHeatmap {
+
+    private static final int MAX_GRID_PRINTED = 40; // Larger boards are only exported as CSV
+
+    private final GameConfig config;
+    private final int size;
+    private final LongAdder[][] shots;
+    private final LongAdder[][] hits;
+    private final LongAdder[][] firstHits;
+    private final LongAdder[][] survivalTurns;  // Summed over the ships covering the cell
+    private final LongAdder[][] survivalShips;
+    private final LogLinearHistogram[] firstHitTurn = {new LogLinearHistogram(), new LogLinearHistogram()};
+    private final LongAdder games = new LongAdder();
+
+    public ShotHeatmap(GameConfig config) {
+        this.config = config;
+        this.size = config.getBoardSize();
+        shots = counters();
+        hits = counters();
+        firstHits = counters();
+        survivalTurns = counters();
+        survivalShips = counters();
+    }
+
+    private LongAdder[][] counters() {
+        LongAdder[][] counters = new LongAdder[2][size * size];
+        for (LongAdder[] side : counters) {
+            for (int i = 0; i < side.length; i++) {
+                side[i] = new LongAdder();
+            }
+        }
+        return counters;
+    }
+
+    // A listener for one engine; recorders must not be shared between engines
+    public GameListener newRecorder() {
+        return new Recorder();
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    private class Recorder implements GameListener {
+
+        private final int[] turn = new int[2];          // Shots fired so far by each side this game
+        private final boolean[] hitYet = new boolean[2];
+        private final int[][] shipStart = new int[2][config.getShipCount()]; // Cell * 2 + 1 if vertical, -1 unplaced
+        private final int[][] sunkTurn = new int[2][config.getShipCount()];  // Attacker's turn of the sink, 0 if afloat
+
+        Recorder() {
+            newGame();
+        }
+
+        @Override
+        public void newGame() {
+            for (int side = 0; side < 2; side++) {
+                turn[side] = 0;
+                hitYet[side] = false;
+                Arrays.fill(shipStart[side], -1);
+                Arrays.fill(sunkTurn[side], 0);
+            }
+        }
+
+        @Override
+        public void shipPlaced(int owner, int shipIndex, int row, int col, char orientation) {
+            shipStart[owner][shipIndex] = (row * size + col) * 2 + (orientation == 'V' ? 1 : 0);
+        }
+
+        @Override
+        public void shotResolved(int shooter, int row, int col, BEngine.ShotResult result) {
+            turn[shooter]++;
+            if (result == BEngine.ShotResult.ALREADY_GUESSED) {
+                return;
+            }
+            int cell = row * size + col;
+            shots[shooter][cell].increment();
+            if (result != BEngine.ShotResult.MISS) {
+                hits[shooter][cell].increment();
+                if (!hitYet[shooter]) {
+                    hitYet[shooter] = true;
+                    firstHits[shooter][cell].increment();
+                    firstHitTurn[shooter].record(turn[shooter]);
+                }
+            }
+        }
+
+        @Override
+        public void shipSunk(int owner, int shipIndex) {
+            sunkTurn[owner][shipIndex] = turn[1 - owner];
+        }
+
+        // Ships still afloat at the end survived every shot the other side fired
+        @Override
+        public void gameOver(int winner, int tries) {
+            for (int owner = 0; owner < 2; owner++) {
+                for (int i = 0; i < shipStart[owner].length; i++) {
+                    int start = shipStart[owner][i];
+                    if (start < 0) {
+                        continue;
+                    }
+                    int turns = sunkTurn[owner][i] > 0 ? sunkTurn[owner][i] : turn[1 - owner];
+                    int step = (start & 1) == 1 ? size : 1;
+                    for (int k = 0, cell = start >>> 1; k < config.getShipLength(i); k++, cell += step) {
+                        survivalTurns[owner][cell].add(turns);
+                        survivalShips[owner][cell].increment();
+                    }
+                }
+            }
+            games.increment();
+        }
+    }
+
+    // One row per side and cell; written to a sibling file first so readers never see half an export.
+    // Synchronized so that two exports never share the sibling file.
+    public synchronized void writeCsv(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write("side,row,col,shots,hits,first_hits,ships_covering,mean_survival_turns\n");
+            for (int side = 0; side < 2; side++) {
+                for (int cell = 0; cell < size * size; cell++) {
+                    long ships = survivalShips[side][cell].sum();
+                    out.write(String.format("%d,%d,%d,%d,%d,%d,%d,%.2f%n", side, cell / size, cell % size,
+                            shots[side][cell].sum(), hits[side][cell].sum(), firstHits[side][cell].sum(), ships,
+                            ships == 0 ? 0.0 : (double) survivalTurns[side][cell].sum() / ships));
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("heatmap over %d games%n", games.sum());
+        for (int side = 0; side < 2; side++) {
+            long[] shotCounts = sums(shots[side]);
+            long[] hitCounts = sums(hits[side]);
+            long totalShots = total(shotCounts);
+            long totalHits = total(hitCounts);
+            out.printf("side %d: %d shots, %.2f%% hits, first hit on turn p50 %d p90 %d, hottest cells %s%n",
+                    side, totalShots, totalShots == 0 ? 0 : 100.0 * totalHits / totalShots,
+                    firstHitTurn[side].getMedian(), firstHitTurn[side].get90thPercentile(), hottest(shotCounts, 5));
+            if (size <= MAX_GRID_PRINTED) {
+                out.println("  shots per cell, 0-9 relative to the busiest cell:");
+                printGrid(out, shotCounts);
+                out.println("  hit rate per cell, 0-9 tenths:");
+                long[] rates = new long[size * size];
+                for (int cell = 0; cell < rates.length; cell++) {
+                    rates[cell] = shotCounts[cell] == 0 ? 0 : Math.min(9, 10 * hitCounts[cell] / shotCounts[cell]);
+                }
+                printGrid(out, rates, 9);
+            }
+        }
+    }
+
+    private void printGrid(PrintStream out, long[] values) {
+        long max = 0;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+        long[] scaled = new long[values.length];
+        for (int cell = 0; cell < values.length; cell++) {
+            scaled[cell] = max == 0 ? 0 : Math.min(9, 10 * values[cell] / max);
+        }
+        printGrid(out, scaled, 9);
+    }
+
+    private void printGrid(PrintStream out, long[] digits, int maxDigit) {
+        StringBuilder line = new StringBuilder(size + 4);
+        for (int row = 0; row < size; row++) {
+            line.setLength(0);
+            line.append("    ");
+            for (int col = 0; col < size; col++) {
+                line.append((char) ('0' + Math.min(maxDigit, digits[row * size + col])));
+            }
+            out.println(line);
+        }
+    }
+
+    private String hottest(long[] values, int count) {
+        long[] order = new long[values.length]; // Count in the high bits, cell in the low ones
+        for (int cell = 0; cell < values.length; cell++) {
+            order[cell] = values[cell] << 24 | cell;
+        }
+        Arrays.sort(order);
+        StringBuilder cells = new StringBuilder();
+        for (int i = order.length - 1; i >= Math.max(0, order.length - count); i--) {
+            int cell = (int) (order[i] & 0xFFFFFF);
+            cells.append(cells.length() == 0 ? "" : " ").append(cell / size).append(',').append(cell % size);
+        }
+        return cells.toString();
+    }
+
+    private static long[] sums(LongAdder[] counters) {
+        long[] sums = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            sums[i] = counters[i].sum();
+        }
+        return sums;
+    }
+
+    private static long total(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,157 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Many GameSnapshots back to back in one file, each prefixed with its length
+public class SnapshotArchive {
+
+    public static final int MAGIC = 0x42534152; // "BSAR"
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 2;
+    private static final long WINDOW_SIZE = 1L << 30; // Read through mapped windows of up to 1GB
+
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20); // Snapshots are batched into 1MB writes
+        private int count = 0;
+
+        public Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+        }
+
+        public void append(BEngine engine) throws IOException {
+            int size = GameSnapshot.sizeOf(engine);
+            if (buffer.remaining() < 4 + size) {
+                flush();
+            }
+            ByteBuffer target = buffer.remaining() >= 4 + size ? buffer : ByteBuffer.allocate(4 + size);
+            target.putInt(size);
+            GameSnapshot.write(engine, target);
+            if (target != buffer) { // Too big to batch, written on its own
+                target.flip();
+                drain(target);
+            }
+            count++;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void flush() throws IOException {
+            buffer.flip();
+            drain(buffer);
+            buffer.clear();
+        }
+
+        private void drain(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+
+    }
+
+    // Hands each restored game to the consumer; the same engine is reused while the config stays the same
+    public static int forEach(Path path, Consumer<BEngine> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, WINDOW_SIZE));
+            if (window.remaining() < HEADER_SIZE || window.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a Battleships snapshot archive");
+            }
+            short version = window.getShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported archive version " + version);
+            }
+            long windowStart = 0;
+            BEngine engine = null;
+            int count = 0;
+            while (windowStart + window.position() < fileSize) {
+                long recordStart = windowStart + window.position();
+                if (window.remaining() < 4 || window.remaining() < 4 + window.getInt(window.position())) {
+                    if (recordStart == windowStart) {
+                        throw new IllegalArgumentException("Truncated or oversized snapshot at byte " + recordStart);
+                    }
+                    windowStart = recordStart; // Slide the window so the whole record is mapped
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(fileSize - windowStart, WINDOW_SIZE));
+                    continue;
+                }
+                int size = window.getInt();
+                int end = window.position() + size;
+                engine = GameSnapshot.read(window, engine);
+                window.position(end);
+                consumer.accept(engine);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    // Checkpoints the final state of every game in a journal, or restores every game of an archive and sums them up
+    public static void main(String[] args) throws IOException {
+        String journal = null;
+        String output = null;
+        String input = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--journal": journal = args[++i]; break;
+                case "--out": output = args[++i]; break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.err.println("Unknown option: " + args[i]);
+                        System.exit(2);
+                    }
+                    input = args[i];
+            }
+        }
+        if ((journal == null) == (input == null) || (journal == null) != (output == null)) {
+            System.err.println("Usage: SnapshotArchive --journal games.bsj --out games.bsar | SnapshotArchive games.bsar");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        if (journal != null) {
+            try (Writer writer = new Writer(Paths.get(output))) {
+                new JournalReplay(Paths.get(journal)).forEachGame(engine -> {
+                    // Replay only re-applies moves; the shooters catch up before their state is written
+                    engine.restore(engine.getPhase(), engine.getWinner(), engine.getTries(BEngine.PLAYER), engine.getTries(BEngine.OPPONENT));
+                    try {
+                        writer.append(engine);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                System.out.printf("%d games archived in %.2fs%n", writer.getCount(), (System.nanoTime() - start) / 1e9);
+            }
+            return;
+        }
+        long[] wins = new long[3]; // Player, opponent, unfinished
+        int count = forEach(Paths.get(input), engine -> wins[engine.isGameOver() ? engine.getWinner() : 2]++);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games restored in %.2fs (%.0f games/sec): player won %d, opponent won %d, %d unfinished%n",
+                count, seconds, count / seconds, wins[BEngine.PLAYER], wins[BEngine.OPPONENT], wins[2]);
+    }
+
+}
@@ -0,0 +1,321 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+public class Tournament {
+
+    private static final Map<String, Supplier<Shooter>> SHOOTERS = new LinkedHashMap<>();
+    private static final Map<String, Supplier<PlacementStrategy>> PLACEMENTS = new LinkedHashMap<>();
+
+    static {
+        SHOOTERS.put("density", DensityShooter::new);
+        SHOOTERS.put("hunt", HuntTargetShooter::new);
+        SHOOTERS.put("montecarlo", () -> new MonteCarloShooter(1, 0, 2000)); // Games already run in parallel; no deadline keeps games reproducible
+        SHOOTERS.put("random", RandomShooter::new);
+        PLACEMENTS.put("random", FleetSampler::new);
+    }
+
+    private static final int GAMES_PER_TASK = 512;
+    private static final long HEATMAP_EXPORT_MILLIS = 10_000;
+
+    // Null for an unknown name
+    public static Supplier<Shooter> shooter(String name) {
+        return SHOOTERS.get(name);
+    }
+
+    public static Iterable<String> shooterNames() {
+        return SHOOTERS.keySet();
+    }
+
+    private final GameConfig config;
+    private final List<Supplier<Shooter>> shooters;
+    private final List<Supplier<PlacementStrategy>> placements;
+    private FileChannel journal; // Optional shared move journal, each leaf appends whole games
+    private ShotHeatmap heatmap;  // Optional, each leaf streams its shots into it
+    private long seed = new SplittableRandom().nextLong(); // Master seed every game's generator derives from
+    private int salvoShots = 0;      // 0 plays one shot a turn
+    private boolean salvoPerShip = false;
+
+    public Tournament(GameConfig config, Supplier<Shooter> shooterA, Supplier<Shooter> shooterB,
+                      Supplier<PlacementStrategy> placementA, Supplier<PlacementStrategy> placementB) {
+        this.config = config;
+        shooters = List.of(shooterA, shooterB);
+        placements = List.of(placementA, placementB);
+    }
+
+    public void setJournal(FileChannel journal) {
+        this.journal = journal;
+    }
+
+    public void setHeatmap(ShotHeatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+
+    public void setSalvo(int shots, boolean perShip) {
+        salvoShots = shots;
+        salvoPerShip = perShip;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Each game's generator depends only on the master seed and the game's index, never on which
+    // thread or leaf played it, so one game of a parallel run can be replayed on its own
+    public static long gameSeed(long seed, long game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Plays a single game of the run on the calling thread
+    public TournamentStats play(int game) {
+        return new GameRange(game, game + 1).compute();
+    }
+
+    public TournamentStats run(int games, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new GameRange(0, games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private class GameRange extends RecursiveTask<TournamentStats> {
+
+        private final int from;
+        private final int to;
+
+        GameRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TournamentStats compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                GameRange left = new GameRange(from, mid);
+                left.fork();
+                TournamentStats stats = new GameRange(mid, to).compute();
+                stats.merge(left.join());
+                return stats;
+            }
+            return playGames();
+        }
+
+        private void playSalvo(BEngine engine, int side) {
+            while (!engine.isGameOver()) {
+                engine.fireSalvoAuto(side);
+                side = 1 - side;
+            }
+        }
+
+        // Each leaf plays its games on its own engine and strategies, each game on its own seeded generator
+        private TournamentStats playGames() {
+            BEngine engine = new BEngine(new BModel(config));
+            PlacementStrategy[] placers = new PlacementStrategy[2];
+            for (int side = 0; side < 2; side++) {
+                engine.setShooter(side, shooters.get(side).get());
+                placers[side] = placements.get(side).get();
+            }
+            TournamentStats stats = new TournamentStats((long) config.getBoardSize() * config.getBoardSize());
+            MoveJournal leafJournal = journal == null ? null : new MoveJournal(journal);
+            engine.setJournal(leafJournal);
+            engine.setSalvo(salvoShots, salvoPerShip);
+            if (heatmap != null) {
+                engine.getModel().addGameListener(heatmap.newRecorder());
+            }
+
+            for (int game = from; game < to; game++) {
+                long gameSeed = gameSeed(seed, game);
+                engine.setRandom(new SplittableRandom(gameSeed));
+                engine.newGame();
+                if (leafJournal != null) {
+                    leafJournal.recordSeed(gameSeed);
+                }
+                engine.placeShips(BEngine.PLAYER, placers[BEngine.PLAYER]);
+                engine.placeShips(BEngine.OPPONENT, placers[BEngine.OPPONENT]);
+
+                int side = game % 2; // Alternate who fires first
+                engine.startBattle(side);
+                if (engine.isSalvo()) {
+                    playSalvo(engine, side);
+                } else {
+                    while (!engine.isGameOver()) {
+                        engine.fireAuto(side);
+                        side = 1 - side;
+                    }
+                }
+                int winner = engine.getWinner();
+                stats.recordWin(winner, engine.getTries(winner), game);
+            }
+            if (leafJournal != null) {
+                try {
+                    leafJournal.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return stats;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 100000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String shooterA = "density", shooterB = "hunt";
+        String placementA = "random", placementB = "random";
+        int boardSize = GameConfig.DEFAULT_BOARD_SIZE;
+        String fleet = null;
+        String journalPath = null;
+        int cacheSize = 0;
+        String heatmapPath = null;
+        Long seed = null;
+        int only = -1;
+        String salvo = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--a": shooterA = args[i + 1]; break;
+                case "--b": shooterB = args[i + 1]; break;
+                case "--placement-a": placementA = args[i + 1]; break;
+                case "--placement-b": placementB = args[i + 1]; break;
+                case "--size": boardSize = Integer.parseInt(args[i + 1]); break;
+                case "--fleet": fleet = args[i + 1]; break;
+                case "--journal": journalPath = args[i + 1]; break;
+                case "--cache": cacheSize = Integer.parseInt(args[i + 1]); break;
+                case "--heatmap": heatmapPath = args[i + 1]; break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--only": only = Integer.parseInt(args[i + 1]); break;
+                case "--salvo": salvo = args[i + 1]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        if (!SHOOTERS.containsKey(shooterA) || !SHOOTERS.containsKey(shooterB)) {
+            System.err.println("Shooters available: " + SHOOTERS.keySet());
+            System.exit(1);
+        }
+        if (!PLACEMENTS.containsKey(placementA) || !PLACEMENTS.containsKey(placementB)) {
+            System.err.println("Placements available: " + PLACEMENTS.keySet());
+            System.exit(1);
+        }
+
+        GameConfig config = GameConfig.parse(boardSize, fleet);
+        DecisionCache cache = cacheSize > 0 ? new DecisionCache(cacheSize) : null;
+        Tournament tournament = new Tournament(config, cached(SHOOTERS.get(shooterA), cache), cached(SHOOTERS.get(shooterB), cache),
+                PLACEMENTS.get(placementA), PLACEMENTS.get(placementB));
+        if (seed != null) {
+            tournament.setSeed(seed);
+        }
+        if (salvo != null) {
+            tournament.setSalvo(salvo.equals("ships") ? 0 : Integer.parseInt(salvo), salvo.equals("ships"));
+        }
+        if (cache != null) {
+            System.err.println("Note: games share the decision cache, so they can only be rerun exactly in the same order");
+        }
+        FileChannel journal = journalPath == null ? null : MoveJournal.create(Paths.get(journalPath), config);
+        tournament.setJournal(journal);
+        ShotHeatmap heatmap = heatmapPath == null ? null : new ShotHeatmap(config);
+        tournament.setHeatmap(heatmap);
+        Thread exporter = heatmap == null ? null : exportPeriodically(heatmap, Paths.get(heatmapPath));
+        Metrics.start();
+        long start = System.nanoTime();
+        TournamentStats stats;
+        try {
+            stats = only >= 0 ? tournament.play(only) : tournament.run(games, threads);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+            if (exporter != null) {
+                exporter.interrupt(); // The final export below must not race a periodic one
+                exporter.join();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String[] names = {shooterA + "/" + placementA, shooterB + "/" + placementB};
+        if (only >= 0) {
+            int winner = stats.getWins(0) > 0 ? 0 : 1;
+            System.out.printf("game %d of seed %d (game seed %d): %s %s wins in %d shots%n", only, tournament.getSeed(),
+                    gameSeed(tournament.getSeed(), only), winner == 0 ? "A" : "B", names[winner], stats.getLongestWinShots(winner));
+        } else {
+            printStats(tournament, stats, names, threads, seconds, cache);
+        }
+        if (heatmap != null) {
+            heatmap.writeCsv(Paths.get(heatmapPath));
+            heatmap.printSummary(System.out);
+        }
+    }
+
+    private static void printStats(Tournament tournament, TournamentStats stats, String[] names, int threads,
+                                   double seconds, DecisionCache cache) {
+        System.out.printf("%d games on %d threads in %.2fs (%.0f games/sec)%n",
+                stats.getGames(), threads, seconds, stats.getGames() / seconds);
+        for (int side = 0; side < 2; side++) {
+            System.out.printf("%-8s %-16s win rate %6.2f%%  shots-to-win mean %6.2f  p50 %3d  p90 %3d  p99 %3d%n",
+                    side == 0 ? "A" : "B", names[side], stats.getWinRate(side) * 100,
+                    stats.getMeanShotsToWin(side),
+                    stats.getShotsToWinPercentile(side, 50),
+                    stats.getShotsToWinPercentile(side, 90),
+                    stats.getShotsToWinPercentile(side, 99));
+        }
+        System.out.printf("seed %d; slowest wins: A game %d (%d shots), B game %d (%d shots), rerun one with --seed %d --only N%n",
+                tournament.getSeed(), stats.getLongestWinGame(0), stats.getLongestWinShots(0),
+                stats.getLongestWinGame(1), stats.getLongestWinShots(1), tournament.getSeed());
+        if (cache != null) {
+            System.out.println("decision cache: " + cache);
+        }
+        if (Metrics.ENABLED) {
+            System.out.print(Metrics.dump());
+        }
+    }
+
+    private static Thread exportPeriodically(ShotHeatmap heatmap, Path path) {
+        Thread exporter = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(HEATMAP_EXPORT_MILLIS);
+                    heatmap.writeCsv(path);
+                    System.out.printf("heatmap: %d games so far, written to %s%n", heatmap.getGames(), path);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (IOException ex) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return; // Stopped mid-write; the final export rewrites the file
+                    }
+                    System.err.println("Cannot write heatmap: " + ex.getMessage());
+                }
+            }
+        }, "battleships-heatmap");
+        exporter.setDaemon(true);
+        exporter.start();
+        return exporter;
+    }
+
+    // One cache serves both sides; its hashes are salted by shooter kind
+    private static Supplier<Shooter> cached(Supplier<Shooter> shooter, DecisionCache cache) {
+        return cache == null ? shooter : () -> new CachingShooter(shooter.get(), cache);
+    }
+
+}
@@ -0,0 +1,84 @@
+public class TournamentStats {
+
+    private final long[] wins = new long[2];
+    private final long[] totalShots = new long[2];
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    private final long[][] shotsToWin; // Histogram of winning shot counts per side
+    private final int bucketWidth;     // 1 (exact) unless the board has more cells than buckets
+    private final int[] longestShots = new int[2];
+    private final long[] longestGame = {-1, -1}; // Game index of each side's slowest win, for rerunning it
+
+    public TournamentStats(long cells) {
+        bucketWidth = (int) Math.max(1, (cells + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        shotsToWin = new long[2][(int) (cells / bucketWidth) + 1];
+    }
+
+    public void recordWin(int side, int shots, long game) {
+        recordWin(side, shots);
+        if (shots > longestShots[side] || (shots == longestShots[side] && game < longestGame[side])) {
+            longestShots[side] = shots;
+            longestGame[side] = game;
+        }
+    }
+
+    public void recordWin(int side, int shots) {
+        wins[side]++;
+        totalShots[side] += shots;
+        shotsToWin[side][Math.min(shots / bucketWidth, shotsToWin[side].length - 1)]++;
+    }
+
+    public void merge(TournamentStats other) {
+        for (int side = 0; side < 2; side++) {
+            wins[side] += other.wins[side];
+            totalShots[side] += other.totalShots[side];
+            for (int i = 0; i < shotsToWin[side].length; i++) {
+                shotsToWin[side][i] += other.shotsToWin[side][i];
+            }
+            if (other.longestGame[side] >= 0 && (longestGame[side] < 0 || other.longestShots[side] > longestShots[side]
+                    || (other.longestShots[side] == longestShots[side] && other.longestGame[side] < longestGame[side]))) {
+                longestShots[side] = other.longestShots[side];
+                longestGame[side] = other.longestGame[side];
+            }
+        }
+    }
+
+    public long getGames() {
+        return wins[0] + wins[1];
+    }
+
+    public long getWins(int side) {
+        return wins[side];
+    }
+
+    public double getWinRate(int side) {
+        long games = getGames();
+        return games == 0 ? 0.0 : (double) wins[side] / games;
+    }
+
+    // -1 if the side never won, or its wins were recorded without game indexes
+    public long getLongestWinGame(int side) {
+        return longestGame[side];
+    }
+
+    public int getLongestWinShots(int side) {
+        return longestShots[side];
+    }
+
+    public double getMeanShotsToWin(int side) {
+        return wins[side] == 0 ? 0.0 : (double) totalShots[side] / wins[side];
+    }
+
+    public int getShotsToWinPercentile(int side, double percentile) {
+        long rank = (long) Math.ceil(percentile / 100.0 * wins[side]);
+        long seen = 0;
+        for (int bucket = 0; bucket < shotsToWin[side].length; bucket++) {
+            seen += shotsToWin[side][bucket];
+            if (seen >= rank && seen > 0) {
+                return bucket * bucketWidth;
+            }
+        }
+        return 0;
+    }
+
+}
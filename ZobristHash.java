@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+// Incremental Zobrist hash of what one shooter has seen of the enemy board: each cell's miss, hit or
+// sunk mark and the lengths of the ships sunk so far. The order the shots came in does not matter, so
+// games that reach the same observations by different routes share a hash. Keys come from a SplitMix64
+// finaliser over the feature number instead of a table, so huge boards cost no memory. A shot changes
+// one key, a sink one key per cell of the sunk ship.
+public class ZobristHash {
+
+    private static final int MISS = 0;
+    private static final int HIT = 1;
+    private static final int SUNK = 2;
+
+    private final long salt;
+    private int size;
+    private long hash;
+    private int[] sunkByLength = new int[8]; // Ships of each length sunk so far
+
+    // Hashes with different salts never agree, so shooters of different kinds can share a cache
+    public ZobristHash(long salt) {
+        this.salt = salt;
+    }
+
+    public void reset(int boardSize, Ship[] fleet) {
+        size = boardSize;
+        hash = key(-1L - boardSize); // Same observations under another config hash differently
+        for (Ship ship : fleet) {
+            hash += key(-1L - ((long) ship.getLength() << 32)); // Summed so fleet order does not matter
+        }
+        Arrays.fill(sunkByLength, 0);
+    }
+
+    public long get() {
+        return hash;
+    }
+
+    public void observe(int row, int col, BEngine.ShotResult result, Ship sunk) {
+        int cell = row * size + col;
+        switch (result) {
+            case MISS:
+                hash ^= cellKey(cell, MISS);
+                break;
+            case HIT:
+                hash ^= cellKey(cell, HIT);
+                break;
+            case SUNK:
+                for (int[] position : sunk.getPositions()) {
+                    int covered = position[0] * size + position[1];
+                    if (covered != cell) {
+                        hash ^= cellKey(covered, HIT); // Earlier hits on the ship turn into sunk cells
+                    }
+                    hash ^= cellKey(covered, SUNK);
+                }
+                int length = sunk.getLength();
+                if (length >= sunkByLength.length) {
+                    sunkByLength = Arrays.copyOf(sunkByLength, length * 2);
+                }
+                hash ^= key(-1L - ((long) length << 32 | 0x80000000L | sunkByLength[length]++));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long cellKey(int cell, int mark) {
+        return key(cell * 3L + mark);
+    }
+
+    private long key(long feature) {
+        long z = salt + feature * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
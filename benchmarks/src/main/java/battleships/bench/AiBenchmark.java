@@ -0,0 +1,63 @@
+package battleships.bench;
+
+import battleships.BEngine;
+import battleships.BModel;
+import battleships.DensityShooter;
+import battleships.HuntTargetShooter;
+import battleships.Shooter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiBenchmark {
+
+    @Param({"density", "hunt"})
+    public String shooterName;
+
+    @Param({"0", "20", "40"})
+    public int turnsPlayed;
+
+    private BEngine engine;
+    private Shooter shooter;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(7);
+        engine = new BEngine(new BModel(), new SplittableRandom(11));
+        shooter = shooterName.equals("density") ? new DensityShooter() : new HuntTargetShooter();
+        engine.setShooter(BEngine.OPPONENT, shooter);
+        engine.newGame();
+        engine.placeShipsRandomly(BEngine.PLAYER);
+        engine.placeShipsRandomly(BEngine.OPPONENT);
+        engine.startBattle(BEngine.OPPONENT);
+        for (int turn = 0; turn < turnsPlayed && !engine.isGameOver(); turn++) {
+            engine.fireAuto(BEngine.OPPONENT);
+            engine.fireAuto(BEngine.PLAYER);
+        }
+    }
+
+    // The move choice made in BController.opponentTurn, without firing it
+    @Benchmark
+    public int chooseTarget() {
+        return shooter.chooseTarget(engine.getBoard(BEngine.PLAYER).getFogView(), random);
+    }
+
+}
@@ -0,0 +1,57 @@
+package battleships.bench;
+
+import battleships.BEngine;
+import battleships.BModel;
+import battleships.DensityShooter;
+import battleships.HuntTargetShooter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"density", "hunt"})
+    public String shooterName;
+
+    private BEngine engine;
+
+    @Setup
+    public void setup() {
+        engine = new BEngine(new BModel(), new SplittableRandom(3));
+        for (int side = 0; side < 2; side++) {
+            engine.setShooter(side, shooterName.equals("density") ? new DensityShooter() : new HuntTargetShooter());
+        }
+    }
+
+    @Benchmark
+    public int fullGame() {
+        engine.newGame();
+        engine.placeShipsRandomly(BEngine.PLAYER);
+        engine.placeShipsRandomly(BEngine.OPPONENT);
+        engine.startBattle();
+        int side = BEngine.PLAYER;
+        while (!engine.isGameOver()) {
+            engine.fireAuto(side);
+            side = 1 - side;
+        }
+        return engine.getTries(engine.getWinner());
+    }
+
+}
@@ -0,0 +1,107 @@
+package battleships.bench;
+
+import battleships.BBoard;
+import battleships.BModel;
+import battleships.FogView;
+import battleships.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private BModel model;
+    private int size;
+    private BBoard scratch;
+    private Ship[] fleet;
+    private Ship carrier;
+    private SplittableRandom random;
+    private char[][] buffer;
+
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(42);
+        model = new BModel();
+        model.initialiseBoard();
+        model.placeShips();
+        size = model.getOpponentGrid().getSize();
+        // Leave a mid-game spread of shots on the opponent board
+        for (int cell = 0; cell < size * size; cell += 3) {
+            model.getOpponentGrid().fire(cell / size, cell % size);
+        }
+        scratch = new BBoard(size);
+        fleet = model.getPlayerShips();
+        carrier = model.getOpponentShips()[0];
+        buffer = new char[size][size];
+    }
+
+    @Benchmark
+    public boolean placeShip() {
+        scratch.clear();
+        return model.placeShip(scratch, fleet[0], 3, 2, 'H');
+    }
+
+    @Benchmark
+    public BBoard placeShips() {
+        scratch.clear();
+        BModel.placeShips(scratch, fleet, random);
+        return scratch;
+    }
+
+    @Benchmark
+    public char[][] getOpponentBoardHidden() {
+        return model.getOpponentBoardHidden();
+    }
+
+    @Benchmark
+    public char[][] exportOpponentBoardHidden() {
+        model.exportOpponentBoardHidden(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public void fogViewCellAt(Blackhole blackhole) {
+        FogView fog = model.getOpponentFogView();
+        for (int row = 0; row < size; row++) {
+            blackhole.consume(fog.cellAt(row, row));
+        }
+    }
+
+    @Benchmark
+    public void shipOccupies(Blackhole blackhole) {
+        for (int row = 0; row < size; row++) {
+            blackhole.consume(carrier.occupies(row, row));
+        }
+    }
+
+    @Benchmark
+    public void shipAt(Blackhole blackhole) {
+        BBoard board = model.getOpponentGrid();
+        for (int row = 0; row < size; row++) {
+            blackhole.consume(board.shipAt(row, row));
+        }
+    }
+
+    @Benchmark
+    public boolean checkWin() {
+        return model.getOpponentGrid().allSunk();
+    }
+
+}
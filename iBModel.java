@@ -1,17 +1,18 @@
-import java.util.Observer;
-
 public interface iBModel {
 
-    int boardSize = 10;
-    void addObserver(Observer observer);
-    void removeObserver(Observer observer);
-    void notifyObservers(Object arg);
+    int getBoardSize();
+    void addGameListener(GameListener listener);
+    void removeGameListener(GameListener listener);
     char[][] getPlayerBoard();
     char[][] getOpponentBoard();
     Ship[] getPlayerShips();
     char[][] getOpponentBoardHidden();
+    FogView getOpponentFogView();
+    void exportOpponentBoardHidden(char[][] buffer);
+    BBoard getPlayerGrid();
+    BBoard getOpponentGrid();
     void initialiseBoard();
     void placeShips();
-    boolean placeShip(char[][] board, Ship ship, int startRow, int startCol, char orientation);
+    boolean placeShip(BBoard board, Ship ship, int startRow, int startCol, char orientation);
 
 }